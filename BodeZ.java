@@ -9,17 +9,21 @@
 // Version 1.0.1, 12/23/2014
 // Based on BodeNyquist Applet version 2.0
 // http://www.williamsonic.com
+// Calculations are done by the headless bodez.core library.
 
 //==========================================================\\
+import bodez.core.*;
 import javax.swing.*;
 import javax.swing.event.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.*;
+import java.io.*;
+import java.math.*;
 import java.text.*;
 import java.util.*;
-
-// units of measure for horizontal axis
-enum FreqUnits {radSamp, cycSamp, radSec, cycSec};
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 // main class for this applet
 //==========================================================\\
@@ -43,7 +47,7 @@ public class BodeZ extends JApplet
     PolarCanvas   thePolar;
     ImpulseCanvas theImpulse;
     PlotPanel     thePanel;
-    PlotData      theData;
+    volatile PlotData theData; // replaced whole, never modified
     JTabbedPane   thePane;
     
     // instance variables
@@ -53,6 +57,7 @@ public class BodeZ extends JApplet
     String sampStr;   // sample rate
     String decadStr;  // number of decades to plot
     String unitsStr;  // units of frequency
+    EngineOptions theOptions = EngineOptions.defaults;
     
     // Set look & feel to match local OS, before drawing anything.
     private void setLAF()
@@ -83,6 +88,9 @@ public class BodeZ extends JApplet
         decadStr = "2";
         unitsStr = "cyc/sec";
         sampStr  = "44100";
+        
+        // options begin with "--", positional arguments follow
+        args = parseOptions(args);
 
         // accept command line arguments if present
         switch (args.length)
@@ -101,7 +109,8 @@ public class BodeZ extends JApplet
             numStr   = args[0];
             break;
         default:
-            System.out.println("usage: java -cp BodeZ.jar BodeZ numCoeff [denCoeff [startFreq [2|3|4 [units [sampRate]]]]]");
+            System.out.println("usage: java -cp BodeZ.jar BodeZ " + EngineOptions.usage
+                + " [--cache=MB] numCoeff [denCoeff [startFreq [2|3|4 [units [sampRate]]]]]");
             break;
         }
 
@@ -109,6 +118,33 @@ public class BodeZ extends JApplet
         setLAF();        
     }
 
+    // remove options from command line, keeping their settings
+    // in theOptions and sizing the shared cache, return remaining
+    // arguments
+    private String[] parseOptions(String args[])
+    {
+        ArrayList<String> theList = new ArrayList<String>();
+        int index;
+        for (index = 0; index < args.length; index++)
+        {
+            String theArg = args[index];
+            if (!theArg.startsWith("--")) {theList.add(theArg);}
+            else
+            {
+                try
+                {
+                    EngineOptions newOptions = theOptions.apply(theArg);
+                    if (null != newOptions) {theOptions = newOptions;}
+                    else if (theArg.startsWith("--cache="))
+                        {ResponseCache.shared.setLimit(Math.max(0, Long.parseLong(theArg.substring(8))) << 20);}
+                    else {System.out.println("Unknown option: " + theArg);}
+                }
+                catch(NumberFormatException e) {System.out.println("Couldn't parse option: " + theArg);}
+            }
+        }
+        return theList.toArray(new String[theList.size()]);
+    }
+
     // main entry point for standalone execution
     public static void main(String args[])
     {
@@ -174,6 +210,13 @@ class PlotCanvas extends JPanel
 {
     // instance data members
     private final BodeZ theApp;
+    
+    // axes, grid and labels, redrawn only for new data
+    private final PlotLayer theLayer = new PlotLayer()
+    {
+        void paintStatic(Graphics g, PlotData theData, boolean hidePhase)
+            {theData.paintPlotAxes(g, hidePhase);}
+    };
 
     // constructor with one arg, a reference to the parent
     PlotCanvas(BodeZ anApp)
@@ -189,9 +232,12 @@ class PlotCanvas extends JPanel
     // draw the plot area as needed
     public void paint(Graphics g)
     {
-        if (null != theApp.theData)
-            {theApp.theData.paintPlot(g);}
-    }    
+        final PlotData theData = theApp.theData;
+        if (null == theData) {return;}
+        final boolean hidePhase = theApp.thePanel.theCheck.isSelected();
+        theLayer.paint(g, this, theData, hidePhase);
+        theData.paintPlotCurves(g, hidePhase);
+    }
 }
 
 //==========================================================\\
@@ -201,6 +247,13 @@ class PolarCanvas extends JPanel
     // instance data members
     private final BodeZ theApp;
     
+    // axes, grid and labels, redrawn only for new data
+    private final PlotLayer theLayer = new PlotLayer()
+    {
+        void paintStatic(Graphics g, PlotData theData, boolean hidePhase)
+            {theData.paintPolarAxes(g, hidePhase);}
+    };
+    
     // constructor with one arg, a reference to the parent
     PolarCanvas(BodeZ anApp)
     {
@@ -215,9 +268,12 @@ class PolarCanvas extends JPanel
     // draw the plot area as needed
     public void paint(Graphics g)
     {
-        if (null != theApp.theData)
-            {theApp.theData.paintPolar(g);}
-    }    
+        final PlotData theData = theApp.theData;
+        if (null == theData) {return;}
+        final boolean hidePhase = theApp.thePanel.theCheck.isSelected();
+        theLayer.paint(g, this, theData, hidePhase);
+        theData.paintPolarCurves(g, hidePhase);
+    }
 }
 
 //==========================================================\\
@@ -227,6 +283,13 @@ class ImpulseCanvas extends JPanel
     // instance data members
     private final BodeZ theApp;
     
+    // axes, grid and labels, redrawn only for new data
+    private final PlotLayer theLayer = new PlotLayer()
+    {
+        void paintStatic(Graphics g, PlotData theData, boolean hidePhase)
+            {theData.paintImpulseAxes(g, hidePhase);}
+    };
+    
     // constructor with one arg, a reference to the parent
     ImpulseCanvas(BodeZ anApp)
     {
@@ -241,8 +304,150 @@ class ImpulseCanvas extends JPanel
     // draw the plot area as needed
     public void paint(Graphics g)
     {
-        if (null != theApp.theData)
-        {theApp.theData.paintImpulse(g);}
+        final PlotData theData = theApp.theData;
+        if (null == theData) {return;}
+        final boolean hidePhase = theApp.thePanel.theCheck.isSelected();
+        theLayer.paint(g, this, theData, hidePhase);
+        theData.paintImpulseCurves(g, hidePhase);
+    }
+}
+
+//==========================================================\\
+// static parts of a plot (axes, grid and labels) drawn once
+// into an off-screen image, which is reused until the data,
+// the Hide Phase setting, or the canvas size changes
+abstract class PlotLayer
+{
+    private BufferedImage theImage;
+    private PlotData theData;
+    private boolean hidePhase;
+    private int theWidth;
+    private int theHeight;
+    private double theScale;
+
+    abstract void paintStatic(Graphics g, PlotData aData, boolean hide);
+
+    // draw the cached image, rebuilding it first if stale
+    void paint(Graphics g, JComponent theCanvas, PlotData aData, boolean hide)
+    {
+        // match the device scale, so text stays sharp on HiDPI screens
+        final double aScale = Math.max(1., ((Graphics2D) g).getTransform().getScaleX());
+        final int aWidth = theCanvas.getWidth();
+        final int aHeight = theCanvas.getHeight();
+        if ((aWidth <= 0) || (aHeight <= 0)) {return;}
+        if ((null == theImage) || (aData != theData) || (hide != hidePhase)
+            || (aWidth != theWidth) || (aHeight != theHeight) || (aScale != theScale))
+        {
+            // reuse the image if the size is unchanged, as it is for
+            // every frame while a coefficient is being tuned
+            final int imageWidth = (int) Math.ceil(aWidth * aScale);
+            final int imageHeight = (int) Math.ceil(aHeight * aScale);
+            if ((null == theImage) || (imageWidth != theImage.getWidth()) || (imageHeight != theImage.getHeight()))
+                {theImage = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB_PRE);}
+            Graphics2D theGraphics = theImage.createGraphics();
+            theGraphics.setComposite(AlphaComposite.Clear);
+            theGraphics.fillRect(0, 0, imageWidth, imageHeight);
+            theGraphics.setComposite(AlphaComposite.SrcOver);
+            theGraphics.setRenderingHints(((Graphics2D) g).getRenderingHints());
+            theGraphics.setFont(theCanvas.getFont());
+            theGraphics.scale(aScale, aScale);
+            paintStatic(theGraphics, aData, hide);
+            theGraphics.dispose();
+            theData = aData;
+            hidePhase = hide;
+            theWidth = aWidth;
+            theHeight = aHeight;
+            theScale = aScale;
+        }
+        g.drawImage(theImage, 0, 0, theWidth, theHeight, null);
+    }
+}
+
+//==========================================================\\
+// curve in pixel coordinates, built once and drawn in one call
+class Polyline
+{
+    final int[] xPoints;
+    final int[] yPoints;
+    final int nPoints;
+    final Color theColor;
+
+    Polyline(int[] xArray, int[] yArray, int aCount, Color aColor)
+    {
+        xPoints = xArray;
+        yPoints = yArray;
+        nPoints = aCount;
+        theColor = aColor;
+    }
+
+    void paint(Graphics g)
+    {
+        g.setColor(theColor);
+        g.drawPolyline(xPoints, yPoints, nPoints);
+    }
+
+    // add points [0...split] in one color and [split...count-1]
+    // in another, skipping either part if it has no segments
+    static void split(java.util.List<Polyline> theCurves, int[] xArray, int[] yArray,
+        int theCount, int split, Color firstColor, Color secondColor)
+    {
+        if (split >= 1)
+            {theCurves.add(reduced(xArray, yArray, 0, Math.min(split, theCount - 1), firstColor));}
+        final int theStart = Math.max(split, 0);
+        if (theCount - theStart >= 2)
+            {theCurves.add(reduced(xArray, yArray, theStart, theCount - 1, secondColor));}
+    }
+
+    // curve through points [from...to], with each run of points
+    // in one pixel column reduced to its first, lowest, highest
+    // and last points, which covers the same pixels however dense
+    // the data, so drawing cost follows the canvas width
+    static Polyline reduced(int[] xArray, int[] yArray, int from, int to, Color aColor)
+    {
+        int[] xPoints = new int[Math.min(to - from + 2, 4096)];
+        int[] yPoints = new int[xPoints.length];
+        int theCount = 0;
+        int index = from;
+        while (index <= to)
+        {
+            // find extent of this run
+            final int theColumn = xArray[index];
+            final int first = index;
+            int lowest = yArray[index];
+            int highest = lowest;
+            while ((index <= to) && (xArray[index] == theColumn))
+            {
+                lowest = Math.min(lowest, yArray[index]);
+                highest = Math.max(highest, yArray[index]);
+                index++;
+            }
+            
+            // keep at most four points, dropping repeats
+            if (theCount + 4 > xPoints.length)
+            {
+                xPoints = Arrays.copyOf(xPoints, 2 * xPoints.length + 4);
+                yPoints = Arrays.copyOf(yPoints, xPoints.length);
+            }
+            final int[] theRun = {yArray[first], lowest, highest, yArray[index - 1]};
+            int step;
+            for (step = 0; step < theRun.length; step++)
+            {
+                if ((theCount > 0) && (xPoints[theCount - 1] == theColumn)
+                    && (yPoints[theCount - 1] == theRun[step])) {continue;}
+                xPoints[theCount] = theColumn;
+                yPoints[theCount] = theRun[step];
+                theCount++;
+            }
+        }
+        
+        // a curve that never leaves one pixel still draws it
+        if (1 == theCount)
+        {
+            xPoints[1] = xPoints[0];
+            yPoints[1] = yPoints[0];
+            theCount = 2;
+        }
+        return new Polyline(xPoints, yPoints, theCount, aColor);
     }
 }
 
@@ -256,6 +461,7 @@ implements ActionListener, ChangeListener
 
     // Swing instance variables, to support platform-based look & feel.
     final JButton theButton;
+    final JButton theTuneButton;
     final JCheckBox theCheck;
     final JLabel numLabel;
     final JTextField numField;
@@ -268,6 +474,48 @@ implements ActionListener, ChangeListener
     final JComboBox unitsCombo;
     final JTextField sampField;
     final JLabel sampLabel;
+    
+    // background thread for calculations, so the GUI stays responsive
+    private final ExecutorService theExecutor = Executors.newSingleThreadExecutor(new ThreadFactory()
+    {
+        public Thread newThread(Runnable r)
+        {
+            Thread theThread = new Thread(r, "BodeZ compute");
+            theThread.setDaemon(true);
+            return theThread;
+        }
+    });
+    
+    // calculation in progress, the flag that cancels it on
+    // the fork/join workers, and count of plots requested, all
+    // touched only on the event thread
+    private Future<?> thePending;
+    private CancelFlag pendingCancel;
+    private int generation;
+    
+    // results text for the current data, built in the background
+    private String resultText;
+    private String impulseText;
+    
+    // filters in the current data, and the dialog that tunes them
+    private Cascade[] plottedFilters;
+    private JDialog theTuner;
+    private TunePanel theTunePanel;
+    
+    // filters last parsed from the entry fields, and their text
+    private Cascade[] parsedFilters;
+    private String parsedNumText;
+    private String parsedDenText;
+    
+    // the same filters as tuned, kept apart from the entry fields;
+    // plotted in their place until the fields are edited or the
+    // tuning is reverted
+    private Cascade[] tunedFilters;
+    
+    // latest tuned filters not yet taken by the background thread,
+    // and whether tuning has replaced the last plot requested
+    private final AtomicReference<Cascade[]> latestTuned = new AtomicReference<Cascade[]>();
+    private boolean isTuning;
 
     // constructor with one argument, a reference to the parent
     PlotPanel(BodeZ anApp)
@@ -284,6 +532,11 @@ implements ActionListener, ChangeListener
         theButton.setOpaque(false);
         theButton.addActionListener(this); // register for events
         
+        // button control to open the tuning dialog
+        theTuneButton = new JButton("Tune...");
+        theTuneButton.setOpaque(false);
+        theTuneButton.addActionListener(this); // register for events
+        
         // check box control to inhibit phase plot
         theCheck = new JCheckBox("Hide Phase", false);
         theCheck.setOpaque(false);
@@ -321,6 +574,7 @@ implements ActionListener, ChangeListener
         buttonPanel.setLayout(new FlowLayout(FlowLayout.LEFT));
         buttonPanel.add(theButton);
         buttonPanel.add(theCheck);
+        buttonPanel.add(theTuneButton);
         
         // set up drop down controls
         JPanel dropPanel = new JPanel();
@@ -398,108 +652,221 @@ implements ActionListener, ChangeListener
     public void actionPerformed(ActionEvent e)
     {
         // checkbox doesn't need to recalculate
-        if (e.getSource() == theCheck)
-        {
-            theApp.theCanvas.repaint();
-            theApp.thePolar.repaint();
-            theApp.theImpulse.repaint();
-        }
+        if (e.getSource() == theCheck) {repaintVisible();}
+        
+        // neither does tuning, until a slider moves
+        else if (e.getSource() == theTuneButton) {openTuner();}
         
         // other controls must recalculate
         else {doPlot();}
     }
     
+    // only the selected tab is on screen
+    private void repaintVisible()
+    {
+        Component theTab = theApp.thePane.getSelectedComponent();
+        if (null != theTab) {theTab.repaint();}
+    }
+    
     // handle tab pane changes
     public void stateChanged(ChangeEvent e)
     {
-        StringBuffer theBuff;
+        // nothing to show until the first plot is ready
+        if (null == theApp.theData) {return;}
+        String theText;
         int theTab = theApp.thePane.getSelectedIndex();
         switch (theTab)
         {
             case 0:
-			case 1: theBuff = theApp.theData.getResult(); break;
-            case 2: theBuff = theApp.theData.getImpulse(); break;
-            default: theBuff = new StringBuffer("Unexpected tab index:" + theTab); break;
+			case 1: theText = resultText; break;
+            case 2: theText = impulseText; break;
+            default: theText = "Unexpected tab index:" + theTab; break;
         }
-        if (null == theBuff)
+        if (null == theText)
         {
             System.out.println("Error: failed to plot data.");
             resultsArea.setText("Error: failed to plot data.");
             return;
         }
-        resultsArea.setText(theBuff.toString());
+        resultsArea.setText(theText);
     }
     
+    // read user input, then calculate on the background thread
     void doPlot()
     {
-        // build polynomial objects for numerator and denominator
-        double[] numCoeff;
-        double[] denCoeff;
-        double startFreq;
-        double sampRate;
+        // Swing controls may only be read on the event thread
+        theApp.numStr   = numField.getText();
+        theApp.denStr   = denField.getText();
+        theApp.startStr = startField.getText();
+        theApp.sampStr  = sampField.getText();
+        final String numText   = theApp.numStr;
+        final String denText   = theApp.denStr;
+        final String startText = theApp.startStr;
+        final String sampText  = theApp.sampStr;
+        final int unitsItem    = unitsCombo.getSelectedIndex();
+        final int decadesItem  = decadesCombo.getSelectedIndex();
+        
+        // tuning lasts while the fields hold the text it started from
+        if (!numText.equals(parsedNumText) || !denText.equals(parsedDenText)) {tunedFilters = null;}
+        final Cascade[] theTuned = tunedFilters;
+        final Cascade[] theParsed = parsedFilters;
+        
+        // abandon any calculation still in progress, tuned or not
+        final EngineOptions theOptions = cancelPending();
+        latestTuned.set(null);
+        isTuning = false;
+        final int theGeneration = ++generation;
+        thePending = theExecutor.submit(new Runnable()
+        {
+            public void run()
+            {
+                computeData(theGeneration, numText, denText, theTuned, theParsed,
+                    startText, sampText, unitsItem, decadesItem, theOptions);
+            }
+        });
+    }
+    
+    // stop the calculation in progress, if any: interrupting the
+    // background thread stops its waits, and the flag stops work
+    // on the fork/join workers.  Returns options with a new flag,
+    // for the calculation that replaces it.
+    private EngineOptions cancelPending()
+    {
+        if (null != thePending) {thePending.cancel(true);}
+        if (null != pendingCancel) {pendingCancel.cancel();}
+        pendingCancel = new CancelFlag();
+        return theApp.theOptions.withCancelFlag(pendingCancel);
+    }
+    
+    // show an error message, unless a newer plot was requested
+    private void showError(final int theGeneration, final String theMsg)
+    {
+        System.out.println(theMsg);
+        SwingUtilities.invokeLater(new Runnable()
+        {
+            public void run()
+            {
+                if (theGeneration == generation) {resultsArea.setText(theMsg);}
+            }
+        });
+    }
+    
+    // build one filter from numerator and denominator text,
+    // or show an error and return null; theName identifies the
+    // filter in messages when several are overlaid
+    private Cascade parseFilter(int theGeneration, String numText, String denText, String theName)
+    {
+        // build polynomial factors for numerator and denominator
+        double[][] numFactors;
+        double[][] denFactors;
         
         // get user input from numerator text field
-        theApp.numStr = numField.getText();
-        try{numCoeff = Polynomial.convertPolyList(theApp.numStr);}
+        try{numFactors = Polynomial.loadFactors(numText);}
         catch(NumberFormatException e)
         {
-            resultsArea.setText("Couldn't parse numerator: " + theApp.numStr);
-            System.out.println("Couldn't parse numerator: " + theApp.numStr);
-            return;
+            showError(theGeneration, "Couldn't parse numerator" + theName + " " + e.getMessage());
+            return null;
+        }
+        catch(IOException e)
+        {
+            showError(theGeneration, "Couldn't read numerator" + theName + ": " + e.getMessage());
+            return null;
         }
         
         // get user input from denominator text field
-        theApp.denStr = denField.getText();
-        try{denCoeff = Polynomial.convertPolyList(theApp.denStr);}
+        try{denFactors = Polynomial.loadFactors(denText);}
         catch(NumberFormatException e)
         {
-            resultsArea.setText("Couldn't parse denominator: "+theApp.denStr);
-            System.out.println("Couldn't parse denominator: "+theApp.denStr);
-            return;
+            showError(theGeneration, "Couldn't parse denominator" + theName + " " + e.getMessage());
+            return null;
         }
+        catch(IOException e)
+        {
+            showError(theGeneration, "Couldn't read denominator" + theName + ": " + e.getMessage());
+            return null;
+        }
+        final Cascade theFilter = new Cascade(numFactors, denFactors);
+        final double[] denCoeff = theFilter.dens();
         if ((1 == denCoeff.length) && (0 == denCoeff[0]))
         {
-            resultsArea.setText("Denominator can't be zero: "+theApp.denStr);
-            System.out.println("Denominator can't be zero: "+theApp.denStr);
-            return;
+            showError(theGeneration, "Denominator" + theName + " can't be zero: " + denText);
+            return null;
+        }
+        return theFilter;
+    }
+    
+    // build the filters to overlay from numerator and denominator
+    // text, or show an error and return null
+    private Cascade[] parseFilters(int theGeneration, String numText, String denText)
+    {
+        // filters to overlay are separated by '|', pairing each
+        // numerator with a denominator, or sharing a single one
+        final String[] numTexts = numText.split("\\|", -1);
+        final String[] denTexts = denText.split("\\|", -1);
+        final int numFilters = Math.max(numTexts.length, denTexts.length);
+        if ((numTexts.length > 1) && (denTexts.length > 1) && (numTexts.length != denTexts.length))
+        {
+            showError(theGeneration, "Numerator lists " + numTexts.length
+                + " filters, but denominator lists " + denTexts.length);
+            return null;
         }
+        final Cascade[] theFilters = new Cascade[numFilters];
+        int index;
+        for (index = 0; index < numFilters; index++)
+        {
+            final String theName = (numFilters > 1) ? " of filter " + (index + 1) : "";
+            theFilters[index] = parseFilter(theGeneration, numTexts[Math.min(index, numTexts.length - 1)],
+                denTexts[Math.min(index, denTexts.length - 1)], theName);
+            if (null == theFilters[index]) {return null;}
+        }
+        return theFilters;
+    }
+    
+    // runs on the background thread, never touches Swing controls;
+    // plots theTuned if not null, tuned from theParsed, in place of
+    // the filters in numText and denText
+    private void computeData(final int theGeneration, String numText, String denText,
+        Cascade[] theTuned, Cascade[] theParsed, String startText, String sampText,
+        int unitsItem, int decadesItem, EngineOptions theOptions)
+    {
+        double startFreq;
+        double sampRate;
+        
+        final Cascade[] theFilters = (null != theTuned) ? theTuned
+            : parseFilters(theGeneration, numText, denText);
+        if (null == theFilters) {return;}
+        final int numFilters = theFilters.length;
+        int index;
         
         // get user input from start freq text field
-        theApp.startStr = startField.getText();
-        try{startFreq = Double.parseDouble(theApp.startStr);}
+        try{startFreq = Double.parseDouble(startText);}
         catch(NumberFormatException e)
         {
-            resultsArea.setText("Couldn't parse start freq: "+theApp.startStr);
-            System.out.println("Couldn't parse start freq: "+theApp.startStr);
+            showError(theGeneration, "Couldn't parse start freq: " + startText);
             return;
         }
         if (0.0 == startFreq)
         {
-            resultsArea.setText("Start freq can't be zero: "+theApp.startStr);
-            System.out.println("Start freq can't be zero: "+theApp.startStr);
+            showError(theGeneration, "Start freq can't be zero: " + startText);
             return;
         }
         
         // get user input from samples per second text field
-        theApp.sampStr = sampField.getText();
-        try{sampRate = Double.parseDouble(theApp.sampStr);}
+        try{sampRate = Double.parseDouble(sampText);}
         catch(NumberFormatException e)
         {
-            resultsArea.setText("Couldn't parse sample rate: "+theApp.sampStr);
-            System.out.println("Couldn't parse sample rate: "+theApp.sampStr);
+            showError(theGeneration, "Couldn't parse sample rate: " + sampText);
             return;
         }
         if (0.0 == sampRate)
         {
-            resultsArea.setText("Sample rate can't be zero: "+theApp.sampStr);
-            System.out.println("Sample rate can't be zero: "+theApp.sampStr);
+            showError(theGeneration, "Sample rate can't be zero: " + sampText);
             return;
         }
         
         // check units of frequency
         FreqUnits unitsRad = FreqUnits.radSamp;
-        int theItem = theApp.thePanel.unitsCombo.getSelectedIndex();
-		switch (theItem)
+		switch (unitsItem)
 		{
 		case 0: unitsRad = FreqUnits.radSamp; break;
 		case 1: unitsRad = FreqUnits.cycSamp; break;
@@ -509,12 +876,16 @@ implements ActionListener, ChangeListener
 		}
 
         // if no problems, show results on console
-        System.out.print(">>Numerator: ");
-        Polynomial.showArray(numCoeff);
-        System.out.print("Denominator: ");
-        Polynomial.showArray(denCoeff);
+        for (index = 0; index < numFilters; index++)
+        {
+            if (numFilters > 1) {System.out.println(">>Filter " + (index + 1));}
+            System.out.print(">>Numerator: ");
+            Polynomial.showArray(theFilters[index].nums());
+            System.out.print("Denominator: ");
+            Polynomial.showArray(theFilters[index].dens());
+        }
 		System.out.print("Start freq.: " + startFreq);
-		switch (theItem)
+		switch (unitsItem)
 		{
 		case 0: System.out.println(" rad/samp"); break;
 		case 1: System.out.println(" cyc/samp"); break;
@@ -523,146 +894,664 @@ implements ActionListener, ChangeListener
 		default: System.out.println(" (unknown units)"); break;
 		}
         System.out.println("Sample rate: " + sampRate  + ' ' +"samp/sec");
+        final String theTunedText = (null == theTuned) ? null : tunedText(theTuned, theParsed);
+        if (null != theTunedText) {System.out.print(theTunedText);}
         
         // calculate transfer function results
-        theApp.theData = new PlotData(theApp, startFreq, unitsRad, numCoeff, denCoeff, sampRate);
-        stateChanged(null);
+        if (Thread.currentThread().isInterrupted()) {return;}
+        final boolean isParsed = (null == theTuned);
+        plotGroup(theGeneration, theFilters, isParsed ? numText : null, isParsed ? denText : null,
+            theTunedText, startFreq, unitsRad, sampRate, decadesItem + 2, theOptions, false);
+    }
+    
+    // calculate transfer function results, all filters at once,
+    // sharing the frequency grid and its e^-jw table, then show
+    // them on the event thread.  numText and denText are the text
+    // theFilters were parsed from, null if tuned, and theTunedText
+    // goes ahead of the results if not null.  Frames plotted while
+    // the slider is dragged (isTuned) skip the results text, which
+    // is filled in when it's released.  Nothing is shown if
+    // theOptions' flag is cancelled first.
+    private void plotGroup(final int theGeneration, final Cascade[] theFilters, final String numText,
+        final String denText, final String theTunedText, final double theFreq, final FreqUnits theUnits,
+        final double theRate, final int theDecades, final EngineOptions theOptions, final boolean isTuned)
+    {
+        final int numFilters = theFilters.length;
+        final PlotData[] theGroup = new PlotData[numFilters];
+        ArrayList<Callable<PlotData>> theTasks = new ArrayList<Callable<PlotData>>();
+        int index;
+        for (index = 0; index < numFilters; index++)
+        {
+            final int theIndex = index;
+            theTasks.add(new Callable<PlotData>()
+            {
+                public PlotData call()
+                {
+                    return new PlotData(theGroup, theIndex, theFreq, theUnits,
+                        theFilters[theIndex], theRate, theDecades, theOptions, !isTuned);
+                }
+            });
+        }
+        try
+        {
+            java.util.List<Future<PlotData>> theResults = ForkJoinPool.commonPool().invokeAll(theTasks);
+            for (index = 0; index < numFilters; index++) {theGroup[index] = theResults.get(index).get();}
+        }
+        catch(InterruptedException e) {return;}
+        catch(CancellationException e) {return;}
+        catch(ExecutionException e)
+        {
+            if (e.getCause() instanceof CancellationException) {return;}
+            showError(theGeneration, "Couldn't calculate response: " + e.getCause());
+            return;
+        }
+        final PlotData theData = theGroup[0];
+        if (!isTuned) {System.out.println(ResponseCache.shared.stats());}
+        if (Thread.currentThread().isInterrupted()) {return;}
+        final String thePrefix  = (null == theTunedText) ? "" : theTunedText;
+        final String theResult  = isTuned ? null : thePrefix + groupText(theGroup, false);
+        final String theImpulse = isTuned ? null : thePrefix + groupText(theGroup, true);
+        
+        // swap in the new data on the event thread
+        SwingUtilities.invokeLater(new Runnable()
+        {
+            public void run()
+            {
+                // a newer plot was requested while this one ran
+                if (theGeneration != generation) {return;}
+                theApp.theData = theData;
+                plottedFilters = theFilters;
+                if (null != numText)
+                {
+                    parsedFilters = theFilters;
+                    parsedNumText = numText;
+                    parsedDenText = denText;
+                }
+                if (!isTuned)
+                {
+                    resultText  = theResult;
+                    impulseText = theImpulse;
+                    stateChanged(null);
+                    if ((null != theTuner) && theTuner.isVisible())
+                        {theTunePanel.setFilters(theFilters, theUnits, theRate);}
+                }
                 
-        // ask plots to redraw themselves with new data
-        theApp.theCanvas.repaint();
-        theApp.thePolar.repaint();
-        theApp.theImpulse.repaint();
-    }    
+                // ask visible plot to redraw itself with new data,
+                // others are painted when their tab is selected
+                repaintVisible();
+            }
+        });
+    }
+    
+    // show the tuning dialog for the plotted filters
+    private void openTuner()
+    {
+        final PlotData theData = theApp.theData;
+        if ((null == theData) || (null == plottedFilters)) {return;}
+        if (null == theTuner)
+        {
+            theTunePanel = new TunePanel(this);
+            theTuner = new JDialog(SwingUtilities.getWindowAncestor(this), "Tune Filter");
+            theTuner.getContentPane().add(theTunePanel);
+            theTuner.pack();
+            theTuner.setLocationRelativeTo(this);
+        }
+        theTunePanel.setFilters(plottedFilters, theData.unitsRad, theData.sampRate);
+        theTuner.setVisible(true);
+    }
+    
+    // plot filters from the tuning slider.  While it's dragged,
+    // only the latest filters are calculated: any that arrive while
+    // one is in progress replace each other, so plots keep up with
+    // the slider however long each takes.  Once released, the tuned
+    // filters are plotted as usual, with results text, and kept
+    // for later plots; the entry fields aren't changed.
+    void tune(Cascade[] theFilters, boolean isFinal)
+    {
+        if (isFinal)
+        {
+            tunedFilters = theFilters;
+            doPlot();
+            return;
+        }
+        
+        // a zero denominator can't be plotted, until released
+        int index;
+        for (index = 0; index < theFilters.length; index++)
+        {
+            final double[] denCoeff = theFilters[index].dens();
+            if ((1 == denCoeff.length) && (0 == denCoeff[0])) {return;}
+        }
+        
+        // tuning replaces any plot still in progress, once
+        final PlotData theData = theApp.theData;
+        if (null == theData) {return;}
+        if (!isTuning)
+        {
+            cancelPending();
+            ++generation;
+            isTuning = true;
+        }
+        
+        // a task not yet started will take these filters instead
+        if (null != latestTuned.getAndSet(theFilters)) {return;}
+        final int theGeneration = generation;
+        final EngineOptions theOptions = theApp.theOptions.withCancelFlag(pendingCancel);
+        thePending = theExecutor.submit(new Runnable()
+        {
+            public void run()
+            {
+                final Cascade[] theLatest = latestTuned.getAndSet(null);
+                if (null == theLatest) {return;}
+                plotGroup(theGeneration, theLatest, null, null, null, theData.startFreq,
+                    theData.unitsRad, theData.sampRate, theData.numDecades, theOptions, true);
+            }
+        });
+    }
+    
+    // discard tuning, and plot the filters in the entry fields
+    void revertTuning()
+    {
+        tunedFilters = null;
+        doPlot();
+    }
+    
+    // list the sections of theTuned that differ from theParsed,
+    // in the syntax of the entry fields
+    private static String tunedText(Cascade[] theTuned, Cascade[] theParsed)
+    {
+        final StringBuilder theText = new StringBuilder("Tuned sections, not in the entry fields:\n");
+        int index;
+        for (index = 0; index < theTuned.length; index++)
+        {
+            final Cascade theBase = ((null == theParsed) || (index >= theParsed.length)) ? null : theParsed[index];
+            final String thePrefix = (theTuned.length > 1) ? "Filter " + (index + 1) + ": " : "";
+            appendTuned(theText, thePrefix + "Numerator ", theTuned[index].numSections(),
+                (null == theBase) ? null : theBase.numSections());
+            appendTuned(theText, thePrefix + "Denominator ", theTuned[index].denSections(),
+                (null == theBase) ? null : theBase.denSections());
+        }
+        return theText.append('\n').toString();
+    }
+    
+    // one line for each section of theSections not in theBase
+    private static void appendTuned(StringBuilder theText, String theName, double[][] theSections,
+        double[][] theBase)
+    {
+        int index;
+        for (index = 0; index < theSections.length; index++)
+        {
+            if ((null != theBase) && (index < theBase.length) && Arrays.equals(theSections[index], theBase[index]))
+                {continue;}
+            theText.append(theName).append(index + 1).append(": (");
+            int inner;
+            for (inner = 0; inner < theSections[index].length; inner++)
+            {
+                if (inner > 0) {theText.append(',');}
+                theText.append(theSections[index][inner]);
+            }
+            theText.append(")\n");
+        }
+    }
+    
+    // results text for the results area, frequency response or
+    // impulse response, of each filter in turn if overlaid
+    private static String groupText(PlotData[] theGroup, boolean isImpulse)
+    {
+        if (1 == theGroup.length) {return isImpulse ? theGroup[0].getImpulse() : theGroup[0].getResult();}
+        StringBuilder theText = new StringBuilder();
+        int index;
+        for (index = 0; index < theGroup.length; index++)
+        {
+            final String theResult = isImpulse ? theGroup[index].getImpulse() : theGroup[index].getResult();
+            theText.append("Filter ").append(index + 1).append(":\n");
+            theText.append((null == theResult) ? "No results for this filter.\n" : theResult).append('\n');
+        }
+        return theText.toString();
+    }
 }
 
 //==========================================================\\
-// container for complex frequency response
-class PlotData
+// slider tuning one coefficient of the plotted filters, or the
+// radius or angle of a complex pair of poles or zeros, shown in
+// a dialog from the Tune button.  Plots follow the slider while
+// it's dragged; releasing it keeps the tuned filters in place of
+// the entry fields, which aren't changed, and centers its range on
+// the new value.  Revert goes back to the entry fields.
+class TunePanel extends JPanel
+implements ActionListener, ChangeListener
 {
-    private final BodeZ theApp;
-    final double startFreq;
-    final FreqUnits unitsRad;
-    final int theRange;
-    final int numDecades;
-    final double sampRate;
-
-    Complex[] theResult;
-    double[] theFreqs;
-    double maxReal;
-    double minReal;
-    double maxImag;
-    double minImag;
-    
-    double[] impulseOutput;
-    double[] stepFcnOutput;
-    double maxImpulse;
-    double minImpulse;
-    double maxStepFcn;
-    double minStepFcn;
+    private static final long serialVersionUID = 1L;
+    
+    // most coefficients offered for tuning, over all filters
+    static final int maxCoeffs = 4096;
+    
+    // slider positions across the range of each target
+    static final int numSteps = 10000;
+    
+    // kinds of target besides a coefficient index
+    private static final int radiusKind = -1;
+    private static final int angleKind  = -2;
+    
+    // reference to the panel that plots tuned filters
+    private final PlotPanel thePanel;
+    
+    final JComboBox<String> targetCombo;
+    final JSlider theSlider;
+    final JLabel valueLabel;
+    final JButton revertButton;
+    private final DecimalFormat theFormat = new DecimalFormat("#.######");
     
-    // constructor with args
-    PlotData(BodeZ anApp, double aFreq, FreqUnits theUnits, double[] numCoeff, double[] denCoeff, double aRate)
+    // sections of each filter as tuned so far, as in Cascade; they
+    // may be shared with the cache, so are replaced, not modified
+    private double[][][] numSections = new double[0][][];
+    private double[][][] denSections = new double[0][][];
+    private FreqUnits unitsRad = FreqUnits.radSamp;
+    private double sampRate = 1.;
+    
+    // filter, side (0 numerator, 1 denominator), section and
+    // kind of each item in targetCombo
+    private int[][] theTargets = new int[0][];
+    
+    // range of the slider for the selected target
+    private double lowValue;
+    private double highValue;
+    
+    // set while controls are changed by code, not the user
+    private boolean isUpdating;
+    
+    // constructor with one argument, the panel to plot tuned filters
+    TunePanel(PlotPanel aPanel)
+    {
+        thePanel = aPanel;
+        setLayout(new GridLayout(3,1,4,4));
+        setBorder(BorderFactory.createEmptyBorder(8,8,8,8));
+        setPreferredSize(new Dimension(360, 110));
+        
+        // choice control for coefficient to tune
+        targetCombo = new JComboBox<String>();
+        targetCombo.addActionListener(this); // register for events
+        
+        // slider across the range of that coefficient
+        theSlider = new JSlider(0, numSteps, numSteps/2);
+        theSlider.addChangeListener(this); // register for events
+        
+        // button control to discard tuning
+        revertButton = new JButton("Revert");
+        revertButton.addActionListener(this); // register for events
+        
+        valueLabel = new JLabel(" ");
+        JPanel valuePanel = new JPanel();
+        valuePanel.setLayout(new BorderLayout(8,0));
+        valuePanel.add(valueLabel, BorderLayout.CENTER);
+        valuePanel.add(revertButton, BorderLayout.EAST);
+        add(targetCombo);
+        add(theSlider);
+        add(valuePanel);
+    }
+    
+    // offer the sections of theFilters for tuning, keeping the
+    // selected item if there still is one
+    void setFilters(Cascade[] theFilters, FreqUnits theUnits, double aRate)
     {
-        // copy input parameters
-        theApp = anApp;
-        startFreq = aFreq;
         unitsRad = theUnits;
         sampRate = aRate;
-
-        // check number of decades from combo control
-        int theItem = theApp.thePanel.decadesCombo.getSelectedIndex();
-		switch (theItem)
-		{
-		case 0: theRange = 300; numDecades = 2; break;
-		case 1: theRange = 200; numDecades = 3; break;
-		case 2: theRange = 150; numDecades = 4; break;
-		default: theRange = 300; numDecades = 2; break;
-		}
+        final int numFilters = theFilters.length;
+        numSections = new double[numFilters][][];
+        denSections = new double[numFilters][][];
+        ArrayList<int[]> targetList = new ArrayList<int[]>();
+        ArrayList<String> nameList = new ArrayList<String>();
+        int numCoeffs = 0;
+        int index;
+        for (index = 0; index < numFilters; index++)
+        {
+            numSections[index] = theFilters[index].numSections();
+            denSections[index] = theFilters[index].denSections();
+            final String thePrefix = (numFilters > 1) ? "Filter " + (index + 1) + ": " : "";
+            numCoeffs += addTargets(targetList, nameList, index, 0, thePrefix + "Numerator ", numSections[index]);
+            numCoeffs += addTargets(targetList, nameList, index, 1, thePrefix + "Denominator ", denSections[index]);
+        }
         
-        // initialize list of frequencies to plot
-        theFreqs = new double[601];
-        theFreqs[0] = startFreq;
-        switch (unitsRad)
+        // refill the list of targets
+        final int theItem = targetCombo.getSelectedIndex();
+        isUpdating = true;
+        targetCombo.removeAllItems();
+        if (numCoeffs > maxCoeffs)
         {
-            case cycSamp: theFreqs[0] *= (2. * Math.PI); break;
-            case radSec:  theFreqs[0] /= sampRate; break;
-            case cycSec:  theFreqs[0] /= (sampRate / 2. / Math.PI); break;
+            theTargets = new int[0][];
+            isUpdating = false;
+            theSlider.setEnabled(false);
+            valueLabel.setText("Filters over " + maxCoeffs + " coefficients can't be tuned.");
+            return;
         }
+        theTargets = targetList.toArray(new int[0][]);
+        for (index = 0; index < theTargets.length; index++) {targetCombo.addItem(nameList.get(index));}
+        if ((theItem >= 0) && (theItem < theTargets.length)) {targetCombo.setSelectedIndex(theItem);}
+        isUpdating = false;
+        selectTarget();
+    }
+    
+    // add a target for each coefficient of theSections, and for
+    // the radius and angle of each complex pair of roots;
+    // returns number of coefficients
+    private static int addTargets(ArrayList<int[]> targetList, ArrayList<String> nameList,
+        int theFilter, int theSide, String theName, double[][] theSections)
+    {
+        int numCoeffs = 0;
         int index;
-        for (index = 1; index < theFreqs.length; index++)
+        for (index = 0; index < theSections.length; index++)
         {
-            // find next frequency in radians/sample as a ratio
-            theFreqs[index] = Math.pow(10.0, 1.0/theRange)*theFreqs[index-1]; 
+            final double[] theCoeffs = theSections[index];
+            final String theSection = theName + (index + 1) + ", ";
+            int inner;
+            for (inner = 0; inner < theCoeffs.length; inner++)
+            {
+                targetList.add(new int[] {theFilter, theSide, index, inner});
+                nameList.add(theSection + "coefficient " + inner);
+            }
+            if (isComplexPair(theCoeffs))
+            {
+                final String theRoots = (0 == theSide) ? "zero " : "pole ";
+                targetList.add(new int[] {theFilter, theSide, index, radiusKind});
+                nameList.add(theSection + theRoots + "radius");
+                targetList.add(new int[] {theFilter, theSide, index, angleKind});
+                nameList.add(theSection + theRoots + "angle");
+            }
+            numCoeffs += theCoeffs.length;
         }
-        
-        // calculate complex response at each plot frequency
-        computePlot(numCoeff, denCoeff);
-        computeImpulse(numCoeff, denCoeff);
+        return numCoeffs;
     }
     
-    StringBuffer getResult()
+    // handle choice of target, or revert
+    public void actionPerformed(ActionEvent e)
     {
-        // copy transfer function results to text buffer
-        StringBuffer theBuff;
-        theBuff = new StringBuffer("Freq. ");
-        switch (unitsRad)
+        if (e.getSource() == revertButton) {thePanel.revertTuning();}
+        else if (!isUpdating) {selectTarget();}
+    }
+    
+    // handle slider movement
+    public void stateChanged(ChangeEvent e)
+    {
+        if (isUpdating) {return;}
+        final int theItem = targetCombo.getSelectedIndex();
+        if ((theItem < 0) || (theItem >= theTargets.length)) {return;}
+        final int[] theTarget = theTargets[theItem];
+        
+        // value at the slider, rounded to a tenth of a step so the
+        // tuned coefficients listed in the results are short
+        final double theStep = (highValue - lowValue) / numSteps;
+        final double theValue = new BigDecimal(lowValue + theStep * theSlider.getValue())
+            .setScale(1 - (int) Math.floor(Math.log10(theStep)), RoundingMode.HALF_EVEN).doubleValue();
+        
+        // replace the section holding the target with a tuned copy
+        final double[][][] theSide = (0 == theTarget[1]) ? numSections : denSections;
+        final double[] theCoeffs = theSide[theTarget[0]][theTarget[2]].clone();
+        switch (theTarget[3])
         {
-            case radSamp: theBuff.append("(rad/samp)"); break;
-            case cycSamp: theBuff.append("(cyc/samp)");  break;
-            case radSec:  theBuff.append("(rad/sec)"); break;
-            case cycSec:  theBuff.append("(cyc/sec)");  break;
+            case radiusKind: setRoots(theCoeffs, theValue, angle(theCoeffs)); break;
+            case angleKind:  theCoeffs[1] = -2. * theCoeffs[0] * radius(theCoeffs) * Math.cos(theValue); break;
+            default: theCoeffs[theTarget[3]] = theValue; break;
         }
-        theBuff.append("\tComplex Resp.\n");
+        theSide[theTarget[0]][theTarget[2]] = theCoeffs;
+        showValue(theTarget[3], theValue);
         
-        // always use scientific notation with 6 sig. figs.
-        final DecimalFormat theFormat = new DecimalFormat("#.######E0");
+        // plot the tuned filters
+        final Cascade[] theFilters = new Cascade[numSections.length];
         int index;
-        for (index = 0; index < theResult.length; index++)
-        {   
-            // first column in frequency in chosen units
-            double aFreq = theFreqs[index];
-            switch (unitsRad)
-            {
-                case cycSamp: aFreq /= (2. * Math.PI); break;
-                case radSec:  aFreq *= sampRate; break;
-                case cycSec:  aFreq *= (sampRate / 2. / Math.PI); break;
-            }
-            theBuff.append(theFormat.format(aFreq));
+        for (index = 0; index < theFilters.length; index++)
+            {theFilters[index] = new Cascade(numSections[index], denSections[index]);}
+        thePanel.tune(theFilters, !theSlider.getValueIsAdjusting());
+    }
+    
+    // set the slider's range around the selected target's value
+    private void selectTarget()
+    {
+        final int theItem = targetCombo.getSelectedIndex();
+        final boolean isValid = (theItem >= 0) && (theItem < theTargets.length);
+        theSlider.setEnabled(isValid);
+        if (!isValid) {return;}
+        final int[] theTarget = theTargets[theItem];
+        final double[] theCoeffs = ((0 == theTarget[1]) ? numSections : denSections)[theTarget[0]][theTarget[2]];
+        double theValue;
+        switch (theTarget[3])
+        {
+            // down to one step above zero, keeping the angle
+            case radiusKind:
+                theValue = radius(theCoeffs);
+                highValue = Math.max(1.5, 2. * theValue);
+                lowValue = highValue / numSteps;
+                break;
             
-            // second column is complex response
-            theBuff.append('\t');
-            theBuff.append(theResult[index].toString());
-            theBuff.append('\n');
+            case angleKind:
+                theValue = angle(theCoeffs);
+                lowValue = 0.;
+                highValue = Math.PI;
+                break;
+            
+            // within the magnitude of the value, or a tenth of the
+            // largest in its section if that's more
+            default:
+                theValue = theCoeffs[theTarget[3]];
+                double theSpan = Math.abs(theValue);
+                int index;
+                for (index = 0; index < theCoeffs.length; index++)
+                    {theSpan = Math.max(theSpan, 0.1 * Math.abs(theCoeffs[index]));}
+                if (0. == theSpan) {theSpan = 1.;}
+                lowValue = theValue - theSpan;
+                highValue = theValue + theSpan;
+                break;
         }
-        return theBuff;
+        isUpdating = true;
+        theSlider.setValue((int) Math.round(numSteps * (theValue - lowValue) / (highValue - lowValue)));
+        isUpdating = false;
+        showValue(theTarget[3], theValue);
     }
-
-    StringBuffer getImpulse()
+    
+    // show the value of a target of the given kind
+    private void showValue(int theKind, double theValue)
     {
-        // scientific notation, 6 sig. figs.
-        final DecimalFormat theFormat = new DecimalFormat("#.######E0");
-        StringBuffer theBuff;
-        theBuff = new StringBuffer("Time (sec)\tImpulse Response\tStep Function\n");
-        int index;
-        for (index = 0; index < impulseOutput.length; index++)
+        switch (theKind)
         {
-			theBuff.append(theFormat.format(index / sampRate));
-			theBuff.append('\t');
-            theBuff.append(theFormat.format(impulseOutput[index]));
-            theBuff.append('\t');
-            theBuff.append(theFormat.format(stepFcnOutput[index]));
-            theBuff.append('\n');
+            case radiusKind: valueLabel.setText("Radius: " + theFormat.format(theValue)); break;
+            case angleKind:
+                valueLabel.setText("Angle: " + theFormat.format(theValue) + " rad/samp, "
+                    + theFormat.format(FreqGrid.fromRadians(theValue, unitsRad, sampRate)) + ' '
+                    + FreqGrid.unitsNames[unitsRad.ordinal()]);
+                break;
+            default: valueLabel.setText("Value: " + theFormat.format(theValue)); break;
         }
-        return theBuff;
     }
     
-    // draw Bode plot in first tabbed pane
-    void paintPlot(Graphics g)
+    // true if a section is c0 + c1 z^-1 + c2 z^-2 with a pair of
+    // complex (or equal) roots, which have a radius and angle
+    static boolean isComplexPair(double[] theCoeffs)
     {
-        final boolean hidePhase = theApp.thePanel.theCheck.isSelected();
-        
-        // move origin to make room for text labels
-        g.translate(50, 3);
+        return (3 == theCoeffs.length) && (theCoeffs[0] * theCoeffs[2] > 0.)
+            && (theCoeffs[1] * theCoeffs[1] <= 4. * theCoeffs[0] * theCoeffs[2]);
+    }
+    
+    // radius of the roots of such a section
+    static double radius(double[] theCoeffs)
+    {
+        return Math.sqrt(theCoeffs[2] / theCoeffs[0]);
+    }
+    
+    // angle of the roots, radians/sample from 0 to pi
+    static double angle(double[] theCoeffs)
+    {
+        final double theCos = -theCoeffs[1] / (2. * theCoeffs[0] * radius(theCoeffs));
+        return Math.acos(Math.max(-1., Math.min(1., theCos)));
+    }
+    
+    // place the roots at aRadius and anAngle, keeping c0, since
+    // c0 (1 - 2r cos(w) z^-1 + r^2 z^-2) has roots r e^(+-jw);
+    // changing only the angle changes only c1
+    static void setRoots(double[] theCoeffs, double aRadius, double anAngle)
+    {
+        theCoeffs[1] = -2. * theCoeffs[0] * aRadius * Math.cos(anAngle);
+        theCoeffs[2] = theCoeffs[0] * aRadius * aRadius;
+    }
+}
+
+//==========================================================\\
+// container for complex frequency response, with the columns
+// and curves derived from it for display.  Several filters may
+// be overlaid, each in its own PlotData, sharing one group: the
+// first draws the axes, scaled to fit them all, and the curves
+// of every filter over them.
+class PlotData
+{
+    // most rows of frequency response shown in the results area
+    static final int shownRows = 4096;
+    
+    // all filters plotted together, this one at theIndex
+    final PlotData[] theGroup;
+    final int theIndex;
+    
+    final double startFreq;
+    final FreqUnits unitsRad;
+    final int theRange;
+    final int numDecades;
+    final double sampRate;
+
+    final double[] theReal;
+    final double[] theImag;
+    final double[] theFreqs;
+    final double[][] theFeatures;   // rows from FeatureFinder, or null
+    final double maxReal;
+    final double minReal;
+    final double maxImag;
+    final double minImag;
+    final double peakDB;            // highest gain, for the scale
+    
+    double[] impulseOutput;   // first samples, for results area
+    double[] stepFcnOutput;
+    long impulseLength;       // number of samples simulated
+    Envelope impulseEnvelope; // whole response, for long plots
+    Envelope stepFcnEnvelope;
+    double maxImpulse = -1.e10;
+    double minImpulse =  1.e10;
+    double maxStepFcn = -1.e10;
+    double minStepFcn =  1.e10;
+    
+    // constructor with args, may run on any thread
+    // since it doesn't read Swing controls; aGroup is filled in
+    // by the caller once all its filters are built.  Peaks and
+    // notches are only found if findFeatures, for the results area.
+    // theOptions set the grid, evaluation and impulse length.
+    PlotData(PlotData[] aGroup, int anIndex, double aFreq, FreqUnits theUnits, Cascade theFilter,
+        double aRate, int theDecades, EngineOptions theOptions, boolean findFeatures)
+    {
+        // copy input parameters
+        theGroup = aGroup;
+        theIndex = anIndex;
+        startFreq = aFreq;
+        unitsRad = theUnits;
+        sampRate = aRate;
+
+        // check number of decades chosen by user
+		switch (theDecades)
+		{
+		case 2: theRange = 300; numDecades = 2; break;
+		case 3: theRange = 200; numDecades = 3; break;
+		case 4: theRange = 150; numDecades = 4; break;
+		default: theRange = 300; numDecades = 2; break;
+		}
+        
+        // calculate complex response at each plot frequency,
+        // reusing recent results from the shared cache
+        FrequencyResponse theResponse = new FrequencyResponse(theFilter, startFreq, unitsRad,
+            sampRate, numDecades, theOptions, ResponseCache.shared, findFeatures);
+        theFreqs    = theResponse.freqs();
+        theReal     = theResponse.reals();
+        theImag     = theResponse.imags();
+        theFeatures = theResponse.features();
+        maxReal = theResponse.maxReal;
+        minReal = theResponse.minReal;
+        maxImag = theResponse.maxImag;
+        minImag = theResponse.minImag;
+        
+        // highest gain, found here so the group's scale needs no
+        // other filter's columns
+        double maxMag = 0.;
+        int index;
+        for (index = 0; index < theReal.length; index++)
+            {maxMag = Math.max(maxMag, Math.hypot(theReal[index], theImag[index]));}
+        peakDB = 20.0 * Math.log(maxMag) / Math.log(10.0);
+        
+        // impulse and step function, if the filter is realizable
+        ImpulseResult theResult = ImpulseResult.simulate(theFilter, theOptions, ResponseCache.shared);
+        if (null != theResult)
+        {
+            impulseOutput   = theResult.impulseOutput();
+            stepFcnOutput   = theResult.stepFcnOutput();
+            impulseLength   = theResult.impulseLength();
+            impulseEnvelope = theResult.impulseEnvelope();
+            stepFcnEnvelope = theResult.stepFcnEnvelope();
+            maxImpulse = theResult.maxImpulse();
+            minImpulse = theResult.minImpulse();
+            maxStepFcn = theResult.maxStepFcn();
+            minStepFcn = theResult.minStepFcn();
+        }
+    }
+    
+    // stream transfer function results to a text table
+    void writeResult(Writer out) throws IOException
+    {
+        ResultWriter.writeResponse(out, unitsRad, sampRate, theFreqs, theReal, theImag);
+    }
+    
+    // stream impulse and step function results to a text table
+    void writeImpulse(Writer out) throws IOException
+    {
+        ResultWriter.writeImpulse(out, sampRate, impulseOutput, stepFcnOutput);
+    }
+    
+    // copy transfer function results to text for results area,
+    // thinned out for dense grids; writeResult has every point
+    String getResult()
+    {
+        final int stride = (theFreqs.length + shownRows - 1) / shownRows;
+        StringWriter out = new StringWriter(32 * Math.min(theFreqs.length, shownRows));
+        try
+        {
+            if (null != theFeatures)
+            {
+                ResultWriter.writeFeatures(out, unitsRad, sampRate, theFeatures);
+                out.write('\n');
+            }
+            ResultWriter.writeResponse(out, unitsRad, sampRate, theFreqs, theReal, theImag, stride);
+        }
+        catch(IOException e) {return null;}
+        if (stride > 1)
+        {
+            out.write("... every " + stride + " of " + theFreqs.length + " points shown\n");
+        }
+        return out.toString();
+    }
+
+    // copy impulse results to text for results area
+    String getImpulse()
+    {
+        if (null == impulseOutput) {return null;}
+        StringWriter out = new StringWriter(48 * impulseOutput.length);
+        try{writeImpulse(out);}
+        catch(IOException e) {return null;}
+        
+        // only the first samples are held in memory
+        if (impulseLength > impulseOutput.length)
+        {
+            out.write("... " + (impulseLength - impulseOutput.length) + " more samples not shown\n");
+        }
+        return out.toString();
+    }
+    
+    // draw Bode plot axes, grid and labels in first tabbed pane,
+    // everything that doesn't move unless the data changes
+    void paintPlotAxes(Graphics g, boolean hidePhase)
+    {
+        // move origin to make room for text labels
+        g.translate(50, 3);
         
         // draw white rectangle for plot area
         g.setColor(Color.white);
@@ -778,104 +1667,106 @@ class PlotData
             g.setColor(Color.magenta);
             g.drawString("Phase (deg)", 520, 18);
         }
+        paintLegend(g, 90, 18);
         
         // draw outline rectangle on top of everything
         g.setColor(Color.black);
         g.drawRect(0, 0, 599, 299);
         
-        // check that data exists before plotting magnitude
-        if ((null == theResult) || (0 == theResult.length))
+        // check that data exists before labeling magnitude
+        if ((null == theReal) || (0 == theReal.length))
         {
             System.out.println("Error: nothing to plot.");
             return;
         }
         
-        // convert all data points to dB
-        double[] dBResult = new double[theResult.length];
-        double maxDB = -100.0;
-        for (index = 0; index < theResult.length; index++)
-        {
-            // convert magnitude to dB, scaled for 5 pixels/dB
-            double theMag = theResult[index].mod();
-            theMag = 20.0 * Math.log(theMag) / Math.log(10.0);
-            dBResult[index] = theMag;
-            
-            // save maximum dB value
-            maxDB = Math.max(maxDB, theMag);
-        }
-        
-        // limit vertical display to the range (-90...90)
-        maxDB = Math.max(Math.min(maxDB, 90), -90);
-        
         // snap to vertical grid, draw text labels
-        maxDB = 6.0 * Math.round(maxDB/6.0);
+        final double maxDB = plotTopDB();
         for (index = 0; index < 9; index++)
         {
             g.drawString(String.valueOf((int)(maxDB - (index * 6.))),
                          -35, index*30 + 34);
         }
-        
-        // reduce clip area while plotting
+    }
+    
+    // draw Bode plot curves of every filter over the axes
+    void paintPlotCurves(Graphics g, boolean hidePhase)
+    {
+        g.translate(50, 3);
         g.clipRect(1, 1, 599, 299);
+        int index;
+        for (index = 0; index < theGroup.length; index++) {paintCurves(g, theGroup[index].plotCurves(hidePhase));}
+    }
+    
+    // gain at top of Bode plot, maximum dB of all filters limited
+    // to the range (-90...90) and snapped to the 6 dB grid
+    private synchronized double plotTopDB()
+    {
+        if (Double.isNaN(topDB))
+        {
+            double maxDB = -100.0;
+            int index;
+            for (index = 0; index < theGroup.length; index++) {maxDB = Math.max(maxDB, theGroup[index].peakDB);}
+            maxDB = Math.max(Math.min(maxDB, 90), -90);
+            topDB = 6.0 * Math.round(maxDB/6.0);
+        }
+        return topDB;
+    }
+    
+    // phase then magnitude, scaled to 300 pixel height, with the
+    // part beyond the Nyquist limit grayed out
+    private Polyline[] buildPlotCurves(boolean hidePhase)
+    {
+        ArrayList<Polyline> theCurves = new ArrayList<Polyline>();
+        if ((null == theReal) || (0 == theReal.length)) {return new Polyline[0];}
+        final int theCount = theReal.length;
+        final int nyquist = nyquistIndex();
         
         // plot phase response first if not hidden
-        int oldy = 0;
-        int newy = 0;
-        int oldx = 0;
         if (!hidePhase)
         {
-            g.setColor(Color.magenta);
-            for (index = 0; index < theResult.length; index++)
-            {
-                // check Nyquist limit
-                if (theFreqs[index] >= Math.PI) {g.setColor(Color.lightGray);}
-
-                // plot on canvas scaled to 300 pixel height
-                newy = (int) (150.5-(theResult[index].arg()*120./Math.PI));
-                if (0 == index){oldy = newy;}
-                else {g.drawLine(oldx, oldy, (int)(index), newy);}
-                oldy = newy;
-                oldx = index;
-            }
+            Polyline.split(theCurves, plotX(), plotPhaseY(), theCount, nyquist - 1,
+                phaseColor(theIndex), Color.lightGray);
         }
         
         // plot magnitude response last
-        oldy = 0;
-        newy = 0;
-        oldx = 0;
-        g.setColor(Color.blue);
-        for (index = 0; index < theResult.length; index++)
+        Polyline.split(theCurves, plotX(), plotGainY(), theCount, nyquist - 1,
+            gainColor(theIndex), Color.gray);
+        return theCurves.toArray(new Polyline[theCurves.size()]);
+    }
+    
+    // scale factor for Nyquist plot, a 'nice' number of units
+    // for 10 ticks, fitting all filters
+    private synchronized double polarPreFactor()
+    {
+        if (Double.isNaN(polarScale))
         {
-            // check Nyquist limit
-            if (theFreqs[index] >= Math.PI) {g.setColor(Color.gray);}
-
-            // plot on canvas scaled to 300 pixel height
-            newy = (int) (5.0 * (maxDB - dBResult[index] + 6.) + 0.5);
-            if (0 == index){oldy = newy;}
-            else {g.drawLine(oldx, oldy, (int)(index), newy);}
-            oldy = newy;
-            oldx = index;
+            // scale plot to fit width and height
+            double xfactor = 0.;
+            double yfactor = 0.;
+            int index;
+            for (index = 0; index < theGroup.length; index++)
+            {
+                xfactor = Math.max(xfactor, Math.max(theGroup[index].maxReal, -theGroup[index].minReal));
+                yfactor = Math.max(yfactor, Math.max(theGroup[index].maxImag, -theGroup[index].minImag));
+            }
+            double preFactor = Math.max(0.5 * xfactor, yfactor);
+            preFactor = Math.max(1.e-6, preFactor);
+            
+            // find a 'nice' number to set scale factor
+            double mult = Math.log(preFactor) / Math.log(10.);
+            mult = Math.pow(10., Math.round(mult - 1.5));
+            polarScale = mult * Math.round(preFactor / mult);
         }
+        return polarScale;
     }
     
-    // draw Nyquist plot in second tabbed pane
-    void paintPolar(Graphics g)
+    // draw Nyquist plot axes in second tabbed pane
+    void paintPolarAxes(Graphics g, boolean hidePhase)
     {
-        final boolean hidePhase = theApp.thePanel.theCheck.isSelected();
-
         // move origin to make room for text labels
         g.translate(40, 3);
-        
-        // scale plot to fit width and height
-        double xfactor = Math.max(maxReal, -minReal);
-        double yfactor = Math.max(maxImag, -minImag);
-        double preFactor = Math.max(0.5 * xfactor, yfactor);
-        preFactor = Math.max(1.e-6, preFactor);
-        
-        // find a 'nice' number to set scale factor
-        double mult = Math.log(preFactor) / Math.log(10.);
-        mult = Math.pow(10., Math.round(mult - 1.5));
-        preFactor = mult * Math.round(preFactor / mult);
+        final double preFactor = polarPreFactor();
         final int scale = 13;
         double factor = 10. * scale / preFactor;
         
@@ -944,102 +1835,98 @@ class PlotData
         g.setColor(Color.black);
         g.drawRect(0, 0, 599, 299);
         g.drawString("Imaginary Plane", 256, 15);
+        paintLegend(g, 10, 290);
 
         // if data exists, plot magnitude
-        if ((theResult == null) || (theResult.length == 0))
+        if ((theReal == null) || (theReal.length == 0))
         {
             System.out.println("Error: nothing to plot.");
             return;
         }
-
-        // reduce clip area while plotting
-        g.clipRect(1, 1, 598, 298);
-
-        // draw text label for first point
-        int newx = 0;
-        int newy = 0;
-        int oldx = 0;
-        int oldy = 0;
-                        
-        // plot negative frequencies if enabled
+        
+        // draw unit circle when negative frequencies are shown
         if (!hidePhase)
         {
-            // draw unit circle
+            g.clipRect(1, 1, 598, 298);
             int tickx = (int)(300.5 - factor);
             int dia = (int)(2. * factor);
             g.setColor(Color.lightGray);
             g.drawOval(tickx, tickx-150, dia, dia);
             g.setColor(Color.magenta);
             g.drawLine(tickx, 142, tickx, 158);
-            
-            // plot response
-            boolean first = true;
-            for (index = theResult.length-1; index >= 0; index--)
-            {
-                // check Nyquist limit
-                if (theFreqs[index] < Math.PI) {g.setColor(Color.magenta);}
-                else {g.setColor(Color.lightGray);}
-                newx = (int)(300.5 + factor * theResult[index].real());
-                newy = (int)(150.5 + factor * theResult[index].imag());
-                if (first)
-                {   // special handling for first point
-                    oldx = newx;
-                    oldy = newy;
-                    first = false;
-                }
-                else {g.drawLine(oldx, oldy, newx, newy);}
-                oldx = newx;
-                oldy = newy;
-            }
         }
-
-        // plot continuous curve
-        boolean first = true;
-        for (index = theResult.length-1; index >= 0; index--)
-        {
-            newx = (int)(300.5 + factor * theResult[index].real());
-            newy = (int)(150.5 - factor * theResult[index].imag());
-            if (first)
-            {   // special handling for first point, text label
-                oldx = newx;
-                oldy = newy;
-
-                // check Nyquist limit
-                if (theFreqs[index] < Math.PI) {g.setColor(Color.black);}
-                else {g.setColor(Color.gray);}
-                g.drawString("\u03C9", newx+3, newy-3);
-                first = false;
-            }
-            else
-            {
-                // check Nyquist limit
-                if (theFreqs[index] < Math.PI) {g.setColor(Color.blue);}
-                else {g.setColor(Color.gray);}
-                g.drawLine(oldx, oldy, newx, newy);
-                oldx = newx;
-                oldy = newy;
-            }
-        }
-
-        // draw text label for last point
+    }
+    
+    // draw Nyquist plot curves of every filter over the axes
+    void paintPolarCurves(Graphics g, boolean hidePhase)
+    {
+        g.translate(40, 3);
+        g.clipRect(1, 1, 598, 298);
+        int index;
+        for (index = 0; index < theGroup.length; index++) {paintCurves(g, theGroup[index].polarCurves(hidePhase));}
+        if ((theReal == null) || (theReal.length == 0)) {return;}
+        
+        // text labels for first and last points of the first filter
+        final int[] xPoints = polarX();
+        final int[] yPoints = polarY();
+        final int last = theReal.length - 1;
+        if (theFreqs[last] < Math.PI) {g.setColor(Color.black);}
+        else {g.setColor(Color.gray);}
+        g.drawString("\u03C9", xPoints[last]+3, yPoints[last]-3);
         g.setColor(Color.black);
-        g.drawString("\u03B1", newx-12, newy-3);
+        g.drawString("\u03B1", xPoints[0]-12, yPoints[0]-3);
     }
     
-    void paintImpulse(Graphics g)
+    // curves traced from highest frequency down, negative
+    // frequencies first if enabled, and the part beyond the
+    // Nyquist limit grayed out
+    private Polyline[] buildPolarCurves(boolean hidePhase)
     {
-        final boolean hidePhase = theApp.thePanel.theCheck.isSelected();
+        ArrayList<Polyline> theCurves = new ArrayList<Polyline>();
+        if ((null == theReal) || (0 == theReal.length)) {return new Polyline[0];}
+        final int theCount = theReal.length;
+        final int split = theCount - 1 - nyquistIndex();
+        final int[] xPoints = reversed(polarX());
         
-        // move origin to make room for text labels
-        g.translate(40, 3);
-
-        // scale plot to fit width and height
-        double maxResp = maxImpulse;
-        double minResp = minImpulse;
+        // plot negative frequencies if enabled
         if (!hidePhase)
         {
-            maxResp = Math.max(maxImpulse, maxStepFcn);
-            minResp = Math.min(minImpulse, minStepFcn);
+            Polyline.split(theCurves, xPoints, reversed(polarMirrorY()), theCount, split,
+                Color.lightGray, phaseColor(theIndex));
+        }
+        
+        // plot continuous curve
+        Polyline.split(theCurves, xPoints, reversed(polarY()), theCount, split,
+            Color.gray, gainColor(theIndex));
+        return theCurves.toArray(new Polyline[theCurves.size()]);
+    }
+    
+    private static int[] reversed(int[] theArray)
+    {
+        int[] theReply = new int[theArray.length];
+        int index;
+        for (index = 0; index < theArray.length; index++)
+            {theReply[theArray.length - 1 - index] = theArray[index];}
+        return theReply;
+    }
+    
+    // scale factor for impulse plot, a 'nice' number of units
+    // for 10 ticks, fitting all filters' step functions unless hidden
+    private double impulsePreFactor(boolean hidePhase)
+    {
+        // scale plot to fit width and height
+        double maxResp = -1.e10;
+        double minResp =  1.e10;
+        int index;
+        for (index = 0; index < theGroup.length; index++)
+        {
+            maxResp = Math.max(maxResp, theGroup[index].maxImpulse);
+            minResp = Math.min(minResp, theGroup[index].minImpulse);
+            if (!hidePhase)
+            {
+                maxResp = Math.max(maxResp, theGroup[index].maxStepFcn);
+                minResp = Math.min(minResp, theGroup[index].minStepFcn);
+            }
         }
         double yFactor = Math.max(maxResp, -minResp);
         double preFactor = Math.max(1.e-6, yFactor);
@@ -1047,9 +1934,29 @@ class PlotData
         // find a 'nice' number to set scale factor
         double mult = Math.log(preFactor) / Math.log(10.);
         mult = Math.pow(10., Math.round(mult - 1.5));
-        preFactor = mult * Math.round(preFactor / mult);
+        return mult * Math.round(preFactor / mult);
+    }
+    
+    // samples of the longest response in the group
+    private long groupLength()
+    {
+        long theLength = 0;
+        int index;
+        for (index = 0; index < theGroup.length; index++)
+            {theLength = Math.max(theLength, theGroup[index].impulseLength);}
+        return theLength;
+    }
+    
+    // long responses are compressed into 500 pixels, all on the
+    // time scale of the longest
+    private boolean impulseCompressed() {return (groupLength() > 566);}
+    
+    void paintImpulseAxes(Graphics g, boolean hidePhase)
+    {
+        // move origin to make room for text labels
+        g.translate(40, 3);
+        final double preFactor = impulsePreFactor(hidePhase);
         final int scale = 12;
-        double factor = 10. * scale / preFactor;
         
         // draw white rectangle for plot area
         g.setColor(Color.white);
@@ -1059,10 +1966,11 @@ class PlotData
         final DecimalFormat theFormat = new DecimalFormat("#.####");
 		g.setColor(Color.black);
         int index;
+        final double perPixel = impulseCompressed() ? (groupLength() / 500.) : 1.;
         for (index = 0; index < 501; index += 100)
         {
             g.drawLine(index+30, 299, index+30, 304);
-            String theStr = theFormat.format(index / sampRate);
+            String theStr = theFormat.format(index * perPixel / sampRate);
             g.drawString(theStr, index+34, 317);
         }
 
@@ -1106,358 +2014,309 @@ class PlotData
             g.setColor(Color.magenta);
             g.drawString("Step Function", 500, 18);
         }
+        paintLegend(g, 130, 18);
         
-        // done if no data
+        // report if no data
         if ((null == impulseOutput) || (0 == impulseOutput.length))
         {
             System.out.println("Error: no impulse response to plot.");
-            return;
         }
         else if ((null == stepFcnOutput) || (0 == stepFcnOutput.length))
         {
             System.out.println("Error: no step function to plot.");
-            return;
         }
-        
-        // reduce clip area while plotting
+    }
+    
+    // draw impulse and step function curves of every filter
+    // over the axes
+    void paintImpulseCurves(Graphics g, boolean hidePhase)
+    {
+        g.translate(40, 3);
         g.clipRect(1, 1, 598, 298);
-        int oldx = 0;
-        int oldy = 150;
-        int newx = 30;
-        int newy = 150;
-        g.setColor(Color.blue);
-        g.drawLine(oldx, oldy, newx, newy);
-        oldx = newx;
-        oldy = newy;
-        for (index = 0; index < impulseOutput.length; index++)
-        {
-            // plot impulse response
-            newx = (int)index + 32;
-            newy = (int)(150.5 - factor*impulseOutput[index]);
-            g.drawLine(oldx, oldy, newx, newy);
-            oldx = newx;
-            oldy = newy;
-        }
-        oldx = 0;
-        oldy = 150;
-        newx = 30;
-        newy = 150;
-        if (!hidePhase)
-        {
-            // plot step function response
-            g.setColor(Color.magenta);
-            g.drawLine(oldx, oldy, newx, newy);
-            oldx = newx;
-            oldy = newy;
-            for (index = 0; index < stepFcnOutput.length; index++)
-            {
-                newx = (int)index + 32;
-                newy = (int)(150.5 - factor*stepFcnOutput[index]);
-                g.drawLine(oldx, oldy, newx, newy);
-                oldx = newx;
-                oldy = newy;
-            }
-        }
+        int index;
+        for (index = 0; index < theGroup.length; index++)
+            {paintCurves(g, theGroup[index].impulseCurves(hidePhase));}
     }
-
-    // calculate the complex reponses to all frequencies in input list
-    private void computePlot(double[] nums, double[] dens)
+    
+    // impulse response, then step function if not hidden, each
+    // starting with a lead-in along the axis
+    private Polyline[] buildImpulseCurves(boolean hidePhase)
     {
-        // initialize extremes
-        maxReal = -1.e10;
-        minReal =  1.e10;
-        maxImag = -1.e10;
-        minImag =  1.e10;
-        
-        // check for empty arrays
-        theResult = null;
-        if (0 == nums.length) {return;}
-        if (0 == dens.length) {return;}
-        if (0 == theFreqs.length) {return;}
-        
-        // allocate memory for result array
-        theResult = new Complex[theFreqs.length];
-        
-        // loop through frequencies in sequence
-        int outer;
-        for (outer = 0; outer < theFreqs.length; outer++)
+        ArrayList<Polyline> theCurves = new ArrayList<Polyline>();
+        if ((null == impulseOutput) || (0 == impulseOutput.length)) {return new Polyline[0];}
+        if ((null == stepFcnOutput) || (0 == stepFcnOutput.length)) {return new Polyline[0];}
+        final double factor = 10. * 12 / impulsePreFactor(hidePhase);
+        if (impulseCompressed())
         {
-            // create complex representation of frequency in Z-domain
-            Complex cFreq = Complex.exp(new Complex(0, -theFreqs[outer]));
-            
-            // initialize multiplier to unity
-            Complex cMult = new Complex(1, 0);
-            
-            // calculate complex numerator using all coefficients
-            Complex cNum = new Complex(0, 0);
-            int inner;
-            for (inner = 0; inner < nums.length; inner++)
-            {
-                // get next numerator coefficient
-                Complex cCoef = new Complex(nums[inner], 0);
-                
-                // multiply complex frequency, add to result
-                cCoef.mpy(cMult);
-                cNum.add(cCoef);
-                
-                // increase order of complex frequency
-                cMult.mpy(cFreq);
-            }
-            
-            // reset multiplier to unity
-            cMult = new Complex(1, 0);
-            
-            // calculate complex denominator using all coefficients
-            Complex cDen = new Complex(0, 0);
-            for (inner = 0; inner < dens.length; inner++)
-            {
-                // get next denominator coefficient
-                Complex cCoef = new Complex(dens[inner], 0);
-                
-                // multiply complex frequency, add to result
-                cCoef.mpy(cMult);
-                cDen.add(cCoef);
-                
-                // increase order of complex frequency
-                cMult.mpy(cFreq);
-            }
-            
-            // divide numerator by denominator
-            theResult[outer] = cNum.div(cDen);
-            
-            // check for extreme values at each frequency
-            double realVal = theResult[outer].real();
-            double imagVal = theResult[outer].imag();
-            maxReal = Math.max(maxReal, realVal);
-            minReal = Math.min(minReal, realVal);
-            maxImag = Math.max(maxImag, imagVal);
-            minImag = Math.min(minImag, imagVal);
-        }
-    }
-    
-    private void computeImpulse(double[] nums, double[] dens)
-    {
-        // initialize extremes
-        maxImpulse = -1.e10;
-        minImpulse =  1.e10;
-        maxStepFcn = -1.e10;
-        minStepFcn =  1.e10;
-        
-        // check for empty arrays
-        if (0 == nums.length) {return;}
-        if (0 == dens.length) {return;}
-        if (0.== dens[0])     {return;}
-        
-        // initialize arrays with driving functions
-        double[] impulseInput = new double[512];
-        double[] stepFcnInput = new double[512];
-        impulseOutput = new double[512];
-        stepFcnOutput = new double[512];
-        int outer;
-        for (outer = 0; outer < impulseInput.length; outer++)
+            // plot envelopes, one vertical span per bucket
+            final double perPixel = groupLength() / 500.;
+            theCurves.add(envelopeCurve(impulseEnvelope, factor, perPixel, gainColor(theIndex)));
+            if (!hidePhase)
+                {theCurves.add(envelopeCurve(stepFcnEnvelope, factor, perPixel, phaseColor(theIndex)));}
+        }
+        else
         {
-            if (0 == outer) {impulseInput[outer] = 1.;}
-            else {impulseInput[outer] = 0.;}
-            stepFcnInput[outer] = 1.;
+            theCurves.add(sampleCurve(impulseOutput, factor, gainColor(theIndex)));
+            if (!hidePhase)
+                {theCurves.add(sampleCurve(stepFcnOutput, factor, phaseColor(theIndex)));}
         }
-
-        // iterate over samples and coefficient
-        // to obtain output using Direct Form I
-        for (outer = 0; outer < impulseOutput.length; outer++)
+        return theCurves.toArray(new Polyline[theCurves.size()]);
+    }
+    
+    // one point per sample, one sample per pixel
+    private static Polyline sampleCurve(double[] theSamples, double factor, Color theColor)
+    {
+        final int theCount = theSamples.length + 2;
+        int[] xPoints = new int[theCount];
+        int[] yPoints = new int[theCount];
+        xPoints[0] = 0;  yPoints[0] = 150;
+        xPoints[1] = 30; yPoints[1] = 150;
+        int index;
+        for (index = 0; index < theSamples.length; index++)
         {
-            int inner;
-            for (inner = 0; inner < nums.length; inner++)
-            {
-                final int offset = outer - inner;
-                if (offset < 0) {continue;}
-                impulseOutput[outer] += nums[inner] * impulseInput[offset] / dens[0];
-                stepFcnOutput[outer] += nums[inner] * stepFcnInput[offset] / dens[0];
-            }
-            for (inner = 1; inner < dens.length; inner++)
-            {
-                final int offset = outer - inner;
-                if (offset < 0) {continue;}
-                impulseOutput[outer] -= dens[inner] * impulseOutput[offset] / dens[0];
-                stepFcnOutput[outer] -= dens[inner] * stepFcnOutput[offset] / dens[0];
-            }
-            
-            // update min and max at each sample
-            if (outer < 500)
-            {
-                maxImpulse = Math.max(maxImpulse, impulseOutput[outer]);
-                minImpulse = Math.min(minImpulse, impulseOutput[outer]);
-                maxStepFcn = Math.max(maxStepFcn, stepFcnOutput[outer]);
-                minStepFcn = Math.min(minStepFcn, stepFcnOutput[outer]);
-            }
+            xPoints[index + 2] = index + 32;
+            yPoints[index + 2] = (int)(150.5 - factor*theSamples[index]);
         }
+        return new Polyline(xPoints, yPoints, theCount, theColor);
     }
-}
-
-//==========================================================\\
-// complex values for transfer functions
-class Complex
-{
-    // real part of number
-    private double x;
-
-    // imaginary part of number
-    private double y;
-
-    // default constructor
-    Complex()
+    
+    // min and max of each bucket as a vertical line, joined to
+    // the next bucket, for responses too long to plot one sample
+    // per pixel
+    private static Polyline envelopeCurve(Envelope theEnvelope, double factor, double perPixel,
+        Color theColor)
     {
-        x = 0.0;    // initialize real component
-        y = 0.0;    // initialize imaginary component
+        final int theCount = 2 * theEnvelope.size() + 2;
+        int[] xPoints = new int[theCount];
+        int[] yPoints = new int[theCount];
+        xPoints[0] = 0;  yPoints[0] = 150;
+        xPoints[1] = 30; yPoints[1] = 150;
+        int index;
+        for (index = 0; index < theEnvelope.size(); index++)
+        {
+            final double theCenter = (index + 0.5) * theEnvelope.bucketSize();
+            final int newx = (int)(theCenter / perPixel) + 32;
+            xPoints[2*index + 2] = newx;
+            yPoints[2*index + 2] = (int)(150.5 - factor*theEnvelope.maxValue(index));
+            xPoints[2*index + 3] = newx;
+            yPoints[2*index + 3] = (int)(150.5 - factor*theEnvelope.minValue(index));
+        }
+        return new Polyline(xPoints, yPoints, theCount, theColor);
     }
     
-    // constructor with arguments
-    Complex(double r, double i)
+    // curves are built on first use, for each Hide Phase setting;
+    // painting happens only on the event thread
+    private final Polyline[][] plotCurves    = new Polyline[2][];
+    private final Polyline[][] polarCurves   = new Polyline[2][];
+    private final Polyline[][] impulseCurves = new Polyline[2][];
+    
+    private Polyline[] plotCurves(boolean hidePhase)
     {
-        x = r;    // set real component
-        y = i;    // set imaginary component
+        final int which = hidePhase ? 1 : 0;
+        if (null == plotCurves[which]) {plotCurves[which] = buildPlotCurves(hidePhase);}
+        return plotCurves[which];
     }
-
-    // return real part of complex number
-    double real(){return x;}
-
-    // return imaginary part of complex number
-    double imag(){return y;}
-
-    // return the modulus (magnitude) of complex number
-    double mod(){return Math.sqrt(x * x + y * y);}
-
-    // return the argument (phase angle in radians) of complex number
-    double arg(){return Math.atan2(y, x);}
-
-    // add c to this, return this
-    Complex add(Complex c)
+    
+    private Polyline[] polarCurves(boolean hidePhase)
     {
-        x += c.x;
-        y += c.y;
-        return this;
+        final int which = hidePhase ? 1 : 0;
+        if (null == polarCurves[which]) {polarCurves[which] = buildPolarCurves(hidePhase);}
+        return polarCurves[which];
     }
-
-    // multiply this by c, return this
-    Complex mpy(Complex c)
+    
+    private Polyline[] impulseCurves(boolean hidePhase)
     {
-        double x_new = x*c.x - y*c.y;
-        double y_new = x*c.y + y*c.x;
-
-        // move result to this
-        x = x_new; y = y_new;
-        return this;
+        final int which = hidePhase ? 1 : 0;
+        if (null == impulseCurves[which]) {impulseCurves[which] = buildImpulseCurves(hidePhase);}
+        return impulseCurves[which];
     }
-
-    // divide this by c, return this
-    Complex div(Complex c)
+    
+    private static void paintCurves(Graphics g, Polyline[] theCurves)
     {
-        // rationalize to make denominator real
-        double den = c.x*c.x + c.y*c.y;
-
-        // apply result
-        double x_new = (x*c.x + y*c.y)/den;
-        double y_new = (c.x*y - c.y*x)/den;
-
-        // move result to this
-        x = x_new; y = y_new;
-        return this;
+        int index;
+        for (index = 0; index < theCurves.length; index++) {theCurves[index].paint(g);}
     }
-
-    // take exponential of c, return c
-    static Complex exp(Complex c)
+    
+    // gain (or impulse) colors of overlaid filters after the
+    // first, chosen to stand apart from blue, magenta and gray
+    private static final Color[] overlayColors =
     {
-        double x_new = Math.exp(c.x) * Math.cos(c.y);
-        double y_new = Math.exp(c.x) * Math.sin(c.y);
-        
-        // move result to this
-        c.x = x_new; c.y = y_new;
-        return c;
+        new Color(0xd62728), new Color(0x2ca02c), new Color(0xff7f0e),
+        new Color(0x17becf), new Color(0x8c564b), new Color(0xbcbd22),
+        new Color(0x9467bd), Color.black,         new Color(0x006d6f),
+    };
+    
+    // gain (or impulse) color of each filter, the first in blue,
+    // darker shades once the list has been used
+    static Color gainColor(int anIndex)
+    {
+        if (0 == anIndex) {return Color.blue;}
+        final Color theColor = overlayColors[(anIndex - 1) % overlayColors.length];
+        return (0 == ((anIndex - 1) / overlayColors.length) % 2) ? theColor : theColor.darker();
     }
     
-    // obtain string representation of complex number
-    // designed to be compatible with MS Excel
-    public String toString()
+    // phase (or step function) color of each filter, the first
+    // in magenta, others halfway from their gain color to white
+    static Color phaseColor(int anIndex)
     {
-        // use scientific notation to 6 sig. figs.
-        final DecimalFormat theFormat = new DecimalFormat("+#.######E0;-#");
-        String result = new String(theFormat.format(x)
-            + theFormat.format(y) + "i");
-        return result;
+        if (0 == anIndex) {return Color.magenta;}
+        final Color theColor = gainColor(anIndex);
+        return new Color((theColor.getRed() + 255) / 2, (theColor.getGreen() + 255) / 2,
+            (theColor.getBlue() + 255) / 2);
     }
-}
-
-//==========================================================\\
-// this class holds only static methods, no instance data
-class Polynomial
-{
-    // convert list of coefficients from input string
-    // to an array of doubles
-    static double[] convertPoly(String theStr)
-    {
-        // obtain numerator coefficients from text field
-        theStr = theStr.replace(',', ' ');
-        theStr = theStr.trim();
-        StringTokenizer theToken = new StringTokenizer(theStr);
-        double[] theCoeff = new double[theToken.countTokens()];
-
-        // load coefficients into array
+    
+    // number each overlaid filter in its own color, from (x, y)
+    private void paintLegend(Graphics g, int x, int y)
+    {
+        if (theGroup.length < 2) {return;}
+        final int step = Math.min(20, 400 / theGroup.length);
         int index;
-        for (index = 0; index < theCoeff.length; index++)
+        for (index = 0; index < theGroup.length; index++)
         {
-            theCoeff[index] = Double.parseDouble(theToken.nextToken());
+            g.setColor(gainColor(index));
+            g.drawString(String.valueOf(index + 1), x + index * step, y);
         }
-        return theCoeff;
     }
-
-    // convert list of polynomials from input string
-    // to an array of doubles
-    static double[] convertPolyList(String theStr)
+    
+    // columns derived from the response, one entry per frequency,
+    // computed on first use and kept, since the response is never
+    // modified once built; callers must not modify them either
+    private double[] magnitudeDB;
+    private double[] phaseRadians;
+    private int[] plotX;
+    private int[] plotGainY;
+    private int[] plotPhaseY;
+    private int[] polarX;
+    private int[] polarY;
+    private int[] polarMirrorY;
+    private int nyquistIndex = -1;
+    private double topDB = Double.NaN;
+    private double polarScale = Double.NaN;
+    
+    // gain in dB
+    synchronized double[] magnitudeDB()
     {
-        // initialize return value to unity
-        double[] theReply = {1};
-
-        // polynomials separated by ']' characters
-        theStr = theStr.replace('(', ' ');
-        theStr = theStr.replace('[', ' ');
-        theStr = theStr.replace(')', ';');
-        theStr = theStr.replace(']', ';');
-        theStr = theStr.trim();
-        StringTokenizer theToken = new StringTokenizer(theStr, ";");
-        int index;
-        for (index =  0; theToken.countTokens() > 0; index++)
+        if (null == magnitudeDB)
         {
-            double[] theArray = convertPoly(theToken.nextToken());
-            theReply = multiply(theReply, theArray);
+            magnitudeDB = new double[theReal.length];
+            int index;
+            for (index = 0; index < theReal.length; index++)
+            {
+                double theMag = Math.hypot(theReal[index], theImag[index]);
+                magnitudeDB[index] = 20.0 * Math.log(theMag) / Math.log(10.0);
+            }
         }
-        return theReply;
+        return magnitudeDB;
     }
-
-    static double[] multiply(double[] array1, double[] array2)
+    
+    // phase in radians, principal value (-pi...pi]
+    synchronized double[] phaseRadians()
     {
-        double[] theReply = new double[array1.length + array2.length - 1];
-        int outer;
-        for (outer = 0; outer < array1.length; outer++)
+        if (null == phaseRadians)
         {
-            int inner;
-            for (inner = 0; inner < array2.length; inner++)
-            {
-                theReply[outer + inner] += (array1[outer] * array2[inner]);
-            }
+            phaseRadians = new double[theReal.length];
+            int index;
+            for (index = 0; index < theReal.length; index++)
+                {phaseRadians[index] = Math.atan2(theImag[index], theReal[index]);}
         }
-        return theReply;
+        return phaseRadians;
     }
-
-    static void showArray(double[] theArray)
+    
+    // index of first frequency at or above the Nyquist limit
+    synchronized int nyquistIndex()
     {
-        boolean first = true;
-        final DecimalFormat theFormat = new DecimalFormat("#.######");
-        int index;
-        for (index = 0; index < theArray.length; index++)
+        if (nyquistIndex < 0)
+        {
+            nyquistIndex = 0;
+            while ((nyquistIndex < theFreqs.length) && (theFreqs[nyquistIndex] < Math.PI)) {nyquistIndex++;}
+        }
+        return nyquistIndex;
+    }
+    
+    // Bode plot pixel column of each frequency, from its log
+    // position, so any number of points spans the same width
+    synchronized int[] plotX()
+    {
+        if (null == plotX)
+        {
+            plotX = new int[theReal.length];
+            final double perRatio = theRange / Math.log(10.0);
+            int index;
+            for (index = 0; index < plotX.length; index++)
+                {plotX[index] = (int) Math.round(Math.log(theFreqs[index] / theFreqs[0]) * perRatio);}
+        }
+        return plotX;
+    }
+    
+    // Bode plot gain pixels, 5 pixels per dB
+    synchronized int[] plotGainY()
+    {
+        if (null == plotGainY)
+        {
+            final double[] theDB = magnitudeDB();
+            final double maxDB = plotTopDB();
+            plotGainY = new int[theDB.length];
+            int index;
+            for (index = 0; index < theDB.length; index++)
+                {plotGainY[index] = (int) (5.0 * (maxDB - theDB[index] + 6.) + 0.5);}
+        }
+        return plotGainY;
+    }
+    
+    // Bode plot phase pixels, 240 pixels per pi radians
+    synchronized int[] plotPhaseY()
+    {
+        if (null == plotPhaseY)
+        {
+            final double[] thePhase = phaseRadians();
+            plotPhaseY = new int[thePhase.length];
+            int index;
+            for (index = 0; index < thePhase.length; index++)
+                {plotPhaseY[index] = (int) (150.5-(thePhase[index]*120./Math.PI));}
+        }
+        return plotPhaseY;
+    }
+    
+    // Nyquist plot pixels for the real part
+    synchronized int[] polarX()
+    {
+        if (null == polarX)
         {
-            if (!first){System.out.print(", ");}
-            System.out.print(theFormat.format(theArray[index]));
-            first = false;
+            final double factor = 10. * 13 / polarPreFactor();
+            polarX = new int[theReal.length];
+            int index;
+            for (index = 0; index < theReal.length; index++)
+                {polarX[index] = (int)(300.5 + factor * theReal[index]);}
         }
-        System.out.println();
+        return polarX;
     }
+    
+    // Nyquist plot pixels for the imaginary part
+    synchronized int[] polarY()
+    {
+        if (null == polarY)
+        {
+            final double factor = 10. * 13 / polarPreFactor();
+            polarY = new int[theImag.length];
+            int index;
+            for (index = 0; index < theImag.length; index++)
+                {polarY[index] = (int)(150.5 - factor * theImag[index]);}
+        }
+        return polarY;
+    }
+    
+    // Nyquist plot pixels for negative frequencies, the conjugate
+    synchronized int[] polarMirrorY()
+    {
+        if (null == polarMirrorY)
+        {
+            final double factor = 10. * 13 / polarPreFactor();
+            polarMirrorY = new int[theImag.length];
+            int index;
+            for (index = 0; index < theImag.length; index++)
+                {polarMirrorY[index] = (int)(150.5 + factor * theImag[index]);}
+        }
+        return polarMirrorY;
+    }
+
 }
@@ -0,0 +1,61 @@
+package bodez.bench;
+
+import java.util.Random;
+
+// Reproducible test filters.  An FIR filter of n taps is one
+// polynomial of n random coefficients.  An IIR filter of order n
+// is a cascade of n/2 low-pass biquads, with poles at random
+// radius 0.5...0.95, entered as separate factors the way users
+// enter high-order filters.
+final class Filters
+{
+    private Filters() {}
+
+    // factor lists {numerator, denominator}
+    static double[][][] factors(String theKind, int theTaps)
+    {
+        Random theRandom = new Random(theTaps);
+        if ("FIR".equals(theKind))
+        {
+            double[] theCoeff = new double[theTaps];
+            for (int index = 0; index < theTaps; index++) {theCoeff[index] = theRandom.nextGaussian() / theTaps;}
+            return new double[][][] {{theCoeff}, {{1}}};
+        }
+        final int theSections = Math.max(1, theTaps / 2);
+        double[][] numFactors = new double[theSections][];
+        double[][] denFactors = new double[theSections][];
+        for (int index = 0; index < theSections; index++)
+        {
+            final double theRadius = 0.5 + 0.45 * theRandom.nextDouble();
+            final double theAngle = Math.PI * theRandom.nextDouble();
+            final double[] theDen = {1, -2 * theRadius * Math.cos(theAngle), theRadius * theRadius};
+            final double theGain = (theDen[0] + theDen[1] + theDen[2]) / 4;
+            numFactors[index] = new double[] {theGain, 2 * theGain, theGain};
+            denFactors[index] = theDen;
+        }
+        return new double[][][] {numFactors, denFactors};
+    }
+
+    // text in the syntax of the numerator and denominator fields
+    static String[] text(String theKind, int theTaps)
+    {
+        final double[][][] theFactors = factors(theKind, theTaps);
+        return new String[] {text(theFactors[0]), text(theFactors[1])};
+    }
+
+    private static String text(double[][] theFactors)
+    {
+        StringBuilder theText = new StringBuilder();
+        for (double[] theFactor : theFactors)
+        {
+            theText.append('(');
+            for (int index = 0; index < theFactor.length; index++)
+            {
+                if (index > 0) {theText.append(", ");}
+                theText.append(theFactor[index]);
+            }
+            theText.append(')');
+        }
+        return theText.toString();
+    }
+}
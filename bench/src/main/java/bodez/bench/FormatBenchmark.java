@@ -0,0 +1,82 @@
+package bodez.bench;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import bodez.core.Cascade;
+import bodez.core.FreqGrid;
+import bodez.core.FreqUnits;
+import bodez.core.ResultWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Result tables, the work of PlotData.getResult and getImpulse,
+// written to a Writer that only counts characters.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatBenchmark
+{
+    @Param({"601", "65536", "1000000"})
+    int rows;
+
+    private double[] theFreqs;
+    private double[] theReal;
+    private double[] theImag;
+    private final CountingWriter out = new CountingWriter();
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        final double[][][] theFactors = Filters.factors("IIR", 8);
+        final Cascade theFilter = new Cascade(theFactors[0], theFactors[1]);
+        theFreqs = FreqGrid.logGrid(100, FreqUnits.cycSec, 44100, 2, rows);
+        theReal = new double[rows];
+        theImag = new double[rows];
+        theFilter.evaluate(theFreqs, theReal, theImag);
+    }
+
+    @Benchmark
+    public long response() throws IOException
+    {
+        ResultWriter.writeResponse(out, FreqUnits.cycSec, 44100, theFreqs, theReal, theImag);
+        return out.count;
+    }
+
+    @Benchmark
+    public long impulse() throws IOException
+    {
+        ResultWriter.writeImpulse(out, 44100, theReal, theImag);
+        return out.count;
+    }
+
+    // discards text, keeping only a count so it isn't optimized away
+    static final class CountingWriter extends Writer
+    {
+        long count;
+
+        @Override
+        public void write(char[] theBuff, int theOffset, int theLength) {count += theLength;}
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+}
@@ -0,0 +1,59 @@
+package bodez.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import bodez.core.Cascade;
+import bodez.core.ImpulseKernel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Impulse and step function simulation, the work of
+// ImpulseResult without the response cache.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImpulseBenchmark
+{
+    @Param({"2", "64", "4096", "1000000"})
+    int taps;
+
+    @Param({"FIR", "IIR"})
+    String kind;
+
+    @Param({"512", "8192"})
+    int length;
+
+    private Cascade theFilter;
+    private double[] impulseOutput;
+    private double[] stepFcnOutput;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        final double[][][] theFactors = Filters.factors(kind, taps);
+        theFilter = new Cascade(theFactors[0], theFactors[1]);
+        impulseOutput = new double[length];
+        stepFcnOutput = new double[length];
+    }
+
+    @Benchmark
+    public double[] impulse()
+    {
+        ImpulseKernel.cascade(theFilter, impulseOutput, stepFcnOutput);
+        return stepFcnOutput;
+    }
+}
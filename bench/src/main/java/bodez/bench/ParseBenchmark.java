@@ -0,0 +1,60 @@
+package bodez.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import bodez.core.Polynomial;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Coefficient parsing (Polynomial.convertFactors) and forming
+// the multiplied-out polynomials (Polynomial.multiplyAll).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark
+{
+    @Param({"2", "64", "4096", "1000000"})
+    int taps;
+
+    @Param({"FIR", "IIR"})
+    String kind;
+
+    private String numText;
+    private double[][] numFactors;
+    private double[][] denFactors;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        numText = Filters.text(kind, taps)[0];
+        final double[][][] theFactors = Filters.factors(kind, taps);
+        numFactors = theFactors[0];
+        denFactors = theFactors[1];
+    }
+
+    @Benchmark
+    public double[][] parse()
+    {
+        return Polynomial.convertFactors(numText);
+    }
+
+    @Benchmark
+    public double[] multiply()
+    {
+        return Polynomial.multiplyAll(("IIR".equals(kind)) ? denFactors : numFactors);
+    }
+}
@@ -0,0 +1,71 @@
+package bodez.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import bodez.core.Cascade;
+import bodez.core.EngineOptions;
+import bodez.core.FreqGrid;
+import bodez.core.FreqUnits;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Frequency response evaluation, the work of FrequencyResponse
+// without the response cache, which would hide it.  The vector
+// kernel needs bodez-simd, built on JDK 16 or later, and the
+// option -jvmArgsAppend --add-modules=jdk.incubator.vector.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseBenchmark
+{
+    @Param({"2", "64", "4096", "1000000"})
+    int taps;
+
+    @Param({"FIR", "IIR"})
+    String kind;
+
+    @Param({"601", "16384"})
+    int points;
+
+    @Param({"scalar", "vector"})
+    String kernel;
+
+    private EngineOptions theOptions;
+    private Cascade theFilter;
+    private double[] theFreqs;
+    private double[] theReal;
+    private double[] theImag;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        theOptions = kernel.equals("scalar") ? EngineOptions.defaults.apply("--scalar") : EngineOptions.defaults;
+        if (kernel.equals("vector") && theOptions.kernelName().equals("scalar"))
+            {throw new IllegalStateException("SIMD kernel not loaded, see ResponseBenchmark");}
+        final double[][][] theFactors = Filters.factors(kind, taps);
+        theFilter = new Cascade(theFactors[0], theFactors[1]);
+        theFreqs = FreqGrid.logGrid(100, FreqUnits.cycSec, 44100, 2, points);
+        theReal = new double[points];
+        theImag = new double[points];
+    }
+
+    @Benchmark
+    public double[] response()
+    {
+        return theFilter.evaluate(theFreqs, theReal, theImag, theOptions);
+    }
+}
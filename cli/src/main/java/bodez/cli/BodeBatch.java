@@ -0,0 +1,241 @@
+package bodez.cli;
+
+import bodez.core.*;
+import java.io.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+//==========================================================\\
+// headless batch mode, never loads AWT or Swing classes.
+// Reads one filter per line from a file or standard input,
+// tab-separated fields in the same order and syntax as the
+// BodeZ command line: numCoeff, denCoeff, startFreq, decades,
+// units, sampRate.  The last four are optional.  Blank lines
+// and lines starting with '#' are ignored.  Writes files
+// NNNNN-response.txt, NNNNN-features.txt and NNNNN-impulse.txt
+// for input line NNNNN.
+public class BodeBatch
+{
+    // main entry point for batch execution
+    public static void main(String args[])
+    {
+        File outDir = new File(".");
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        String inName = null;
+        EngineOptions theOptions = EngineOptions.defaults;
+        
+        // options begin with "--", then optional input file name
+        int index;
+        for (index = 0; index < args.length; index++)
+        {
+            String theArg = args[index];
+            try
+            {
+                EngineOptions newOptions = theOptions.apply(theArg);
+                if (null != newOptions)               {theOptions = newOptions;}
+                else if (theArg.startsWith("--cache="))
+                    {ResponseCache.shared.setLimit(Math.max(0, Long.parseLong(theArg.substring(8))) << 20);}
+                else if (theArg.startsWith("--out=")) {outDir = new File(theArg.substring(6));}
+                else if (theArg.startsWith("--threads=")) {numThreads = Math.max(1, Integer.parseInt(theArg.substring(10)));}
+                else if (!theArg.startsWith("--") && (null == inName)) {inName = theArg;}
+                else
+                {
+                    System.err.println("usage: java bodez.cli.BodeBatch " + EngineOptions.usage
+                        + " [--cache=MB] [--threads=N] [--out=dir] [file]");
+                    System.exit(2);
+                }
+            }
+            catch(NumberFormatException e)
+            {
+                System.err.println("Couldn't parse option: " + theArg);
+                System.exit(2);
+            }
+        }
+        if (!outDir.isDirectory() && !outDir.mkdirs())
+        {
+            System.err.println("Couldn't create output directory: " + outDir);
+            System.exit(2);
+        }
+        
+        // keep a bounded number of filters in memory at once
+        ExecutorService thePool = Executors.newFixedThreadPool(numThreads);
+        final Semaphore thePermits = new Semaphore(2 * numThreads);
+        final AtomicInteger numFailed = new AtomicInteger();
+        int numFilters = 0;
+        try
+        {
+            BufferedReader theReader = (null == inName)
+                ? new BufferedReader(new InputStreamReader(System.in))
+                : new BufferedReader(new FileReader(inName));
+            String theLine;
+            int lineNum = 0;
+            while (null != (theLine = theReader.readLine()))
+            {
+                lineNum++;
+                final String theFilter = theLine.trim();
+                if ((0 == theFilter.length()) || theFilter.startsWith("#")) {continue;}
+                
+                // evaluate filters on all threads
+                numFilters++;
+                final int theNum = lineNum;
+                final File theDir = outDir;
+                final EngineOptions someOptions = theOptions;
+                thePermits.acquire();
+                thePool.execute(new Runnable()
+                {
+                    public void run()
+                    {
+                        try{runFilter(theNum, theFilter, theDir, someOptions);}
+                        catch(Exception e)
+                        {
+                            System.err.println("line " + theNum + ": " + e.getMessage());
+                            numFailed.incrementAndGet();
+                        }
+                        finally {thePermits.release();}
+                    }
+                });
+            }
+            theReader.close();
+            thePool.shutdown();
+            thePool.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+        }
+        catch(IOException e)
+        {
+            System.err.println("Couldn't read input: " + e.getMessage());
+            System.exit(2);
+        }
+        catch(InterruptedException e)
+        {
+            System.err.println("Interrupted.");
+            System.exit(2);
+        }
+        System.out.println(numFilters + " filters, " + numFailed.get() + " failed");
+        System.exit((0 == numFailed.get()) ? 0 : 1);
+    }
+    
+    // parse one filter definition, write the result files
+    static void runFilter(int lineNum, String theLine, File outDir, EngineOptions theOptions)
+        throws IOException
+    {
+        String[] theFields = theLine.split("\t");
+        if (theFields.length < 2)
+            {throw new IllegalArgumentException("Need numerator and denominator");}
+        final String numStr   = theFields[0].trim();
+        final String denStr   = theFields[1].trim();
+        final String startStr = (theFields.length > 2) ? theFields[2].trim() : "100";
+        final String decadStr = (theFields.length > 3) ? theFields[3].trim() : "2";
+        final String unitsStr = (theFields.length > 4) ? theFields[4].trim() : "cyc/sec";
+        final String sampStr  = (theFields.length > 5) ? theFields[5].trim() : "44100";
+        
+        final Cascade theFilter = parseFilter(numStr, denStr, true);
+        final double startFreq = parseNonZero(startStr, "start freq");
+        final int numDecades = parseDecades(decadStr);
+        final FreqUnits unitsRad = parseUnits(unitsStr);
+        final double sampRate = parseNonZero(sampStr, "sample rate");
+        
+        // calculate complex response, same grid as the plot,
+        // without the cache since each filter is seen only once
+        FrequencyResponse theResponse = new FrequencyResponse(theFilter, startFreq, unitsRad,
+            sampRate, numDecades, theOptions, null);
+        
+        // stream results to files
+        final String theName = String.format("%05d", lineNum);
+        Writer out = new FileWriter(new File(outDir, theName + "-response.txt"));
+        try{theResponse.writeResult(out);}
+        finally {out.close();}
+        
+        // peaks, notches and half power points
+        out = new FileWriter(new File(outDir, theName + "-features.txt"));
+        try{theResponse.writeFeatures(out);}
+        finally {out.close();}
+        
+        // stream impulse and step function responses as they are simulated
+        out = new FileWriter(new File(outDir, theName + "-impulse.txt"));
+        try
+        {
+            final ResultWriter theWriter = new ResultWriter(out);
+            final double theRate = sampRate;
+            theWriter.impulseHeading();
+            ImpulseKernel.simulate(theFilter, theOptions, new ImpulseSink()
+            {
+                public void samples(long start, double[] impulse, double[] step, int count)
+                {
+                    try
+                    {
+                        int index;
+                        for (index = 0; index < count; index++)
+                            {theWriter.impulseRow((start + index) / theRate, impulse[index], step[index]);}
+                    }
+                    catch(IOException e) {throw new UncheckedIOException(e);}
+                }
+            });
+            theWriter.flush();
+        }
+        catch(UncheckedIOException e) {throw e.getCause();}
+        finally {out.close();}
+    }
+    
+    // fields are checked as the plot checks them, and errors are
+    // thrown as IllegalArgumentException with a message to show
+    
+    // build filter from numerator and denominator fields, which
+    // may name files with "@" only if allowFiles is true
+    static Cascade parseFilter(String numStr, String denStr, boolean allowFiles)
+    {
+        return makeFilter(parseFactors(numStr, "numerator", allowFiles),
+            parseFactors(denStr, "denominator", allowFiles), denStr);
+    }
+    
+    // factors of one field, theName for messages
+    static double[][] parseFactors(String theStr, String theName, boolean allowFiles)
+    {
+        try{return allowFiles ? Polynomial.loadFactors(theStr) : Polynomial.convertFactors(theStr);}
+        catch(NumberFormatException e)
+            {throw new IllegalArgumentException("Couldn't parse " + theName + " " + e.getMessage());}
+        catch(IOException e)
+            {throw new IllegalArgumentException("Couldn't read " + theName + ": " + e.getMessage());}
+    }
+    
+    // filter from parsed factors, denStr for messages
+    static Cascade makeFilter(double[][] numFactors, double[][] denFactors, String denStr)
+    {
+        Cascade theFilter = new Cascade(numFactors, denFactors);
+        final double[] denCoeff = theFilter.dens();
+        if ((1 == denCoeff.length) && (0 == denCoeff[0]))
+            {throw new IllegalArgumentException("Denominator can't be zero: " + denStr);}
+        return theFilter;
+    }
+    
+    // start frequency or sample rate, named for messages
+    static double parseNonZero(String theStr, String theName)
+    {
+        double theValue;
+        try{theValue = Double.parseDouble(theStr);}
+        catch(NumberFormatException e)
+            {throw new IllegalArgumentException("Couldn't parse " + theName + ": " + theStr);}
+        if (0.0 == theValue)
+        {
+            throw new IllegalArgumentException(Character.toUpperCase(theName.charAt(0))
+                + theName.substring(1) + " can't be zero: " + theStr);
+        }
+        return theValue;
+    }
+    
+    // number of decades, limited to the range (2...4)
+    static int parseDecades(String decadStr)
+    {
+        int numDecades;
+        try{numDecades = Integer.parseInt(decadStr);}
+        catch(NumberFormatException e)
+            {throw new IllegalArgumentException("Couldn't parse number of decades: " + decadStr);}
+        return Math.max(Math.min(numDecades, 4), 2);
+    }
+    
+    static FreqUnits parseUnits(String unitsStr)
+    {
+        FreqUnits unitsRad = FreqGrid.parseUnits(unitsStr);
+        if (null == unitsRad)
+            {throw new IllegalArgumentException("Unknown units: " + unitsStr);}
+        return unitsRad;
+    }
+}
@@ -0,0 +1,435 @@
+package bodez.cli;
+
+import bodez.core.*;
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+//==========================================================\\
+// headless HTTP service, never loads AWT or Swing classes.
+// GET or POST /response and /impulse with form parameters:
+//   num, den          coefficients, as in the plot's fields
+//   start, decades, units, rate   grid, as on the command line
+//   points, refine    grid size, as --points and --refine
+//   length, decay     impulse samples, as --impulse and --decay
+//   format            "json" (default) or "binary"
+// Binary replies are columns of little endian doubles: freq,
+// real, imag, gain (dB) and phase (deg) for /response, impulse
+// and step for /impulse, with the row count in X-Rows.
+// Each request runs on its own virtual thread where the JDK
+// has them, otherwise on a fixed pool of threads.
+public class BodeServer
+{
+    // limits on one request, so no client can exhaust memory,
+    // or hold a thread for long with a huge filter: impulse
+    // responses cost about length times coefficients
+    static final int maxPoints = 1 << 20;
+    static final int maxLength = 1 << 20;
+    static final int maxBody = 64 << 20;
+    static final int maxCoeffs = 1 << 16;
+    static final long maxImpulseWork = 1L << 32;
+    
+    // main entry point for server execution
+    public static void main(String args[])
+    {
+        String theHost = "127.0.0.1";
+        int thePort = 8080;
+        int numThreads = 4 * Runtime.getRuntime().availableProcessors();
+        EngineOptions theOptions = EngineOptions.defaults;
+        
+        // options begin with "--"
+        int index;
+        for (index = 0; index < args.length; index++)
+        {
+            String theArg = args[index];
+            try
+            {
+                EngineOptions newOptions = theOptions.apply(theArg);
+                if (null != newOptions)                   {theOptions = newOptions;}
+                else if (theArg.startsWith("--cache="))
+                    {ResponseCache.shared.setLimit(Math.max(0, Long.parseLong(theArg.substring(8))) << 20);}
+                else if (theArg.startsWith("--port="))    {thePort = Integer.parseInt(theArg.substring(7));}
+                else if (theArg.startsWith("--bind="))    {theHost = theArg.substring(7);}
+                else if (theArg.startsWith("--threads=")) {numThreads = Math.max(1, Integer.parseInt(theArg.substring(10)));}
+                else
+                {
+                    System.err.println("usage: java bodez.cli.BodeServer " + EngineOptions.usage
+                        + " [--cache=MB] [--port=N] [--bind=address] [--threads=N]");
+                    System.exit(2);
+                }
+            }
+            catch(NumberFormatException e)
+            {
+                System.err.println("Couldn't parse option: " + theArg);
+                System.exit(2);
+            }
+        }
+        
+        // replies are written as headers then body, which Nagle's
+        // algorithm would hold back for the client's delayed ACK,
+        // about 40 msec per request on a kept-alive connection
+        if (null == System.getProperty("sun.net.httpserver.nodelay"))
+            {System.setProperty("sun.net.httpserver.nodelay", "true");}
+        
+        HttpServer theServer;
+        try{theServer = HttpServer.create(new InetSocketAddress(theHost, thePort), 1024);}
+        catch(IOException e)
+        {
+            System.err.println("Couldn't listen on " + theHost + ":" + thePort + ": " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        
+        // each request starts from the command line settings
+        final EngineOptions someOptions = theOptions;
+        theServer.createContext("/response", new HttpHandler()
+        {
+            public void handle(HttpExchange theExchange) throws IOException
+                {serve(theExchange, false, someOptions);}
+        });
+        theServer.createContext("/impulse", new HttpHandler()
+        {
+            public void handle(HttpExchange theExchange) throws IOException
+                {serve(theExchange, true, someOptions);}
+        });
+        theServer.setExecutor(newExecutor(numThreads));
+        theServer.start();
+        System.out.println("Listening on http://" + theHost + ":" + theServer.getAddress().getPort() + "/");
+        System.out.println("Using " + theOptions.kernelName() + " evaluation");
+    }
+    
+    // one virtual thread per request on JDK 21 and later, found
+    // by reflection so this still builds for older releases
+    static ExecutorService newExecutor(int numThreads)
+    {
+        try
+        {
+            ExecutorService theExecutor = (ExecutorService)
+                Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            System.out.println("Using virtual threads");
+            return theExecutor;
+        }
+        catch(ReflectiveOperationException e)
+        {
+            System.out.println("Using " + numThreads + " threads");
+            return Executors.newFixedThreadPool(numThreads);
+        }
+    }
+    
+    // answer one request, reporting bad input to the client;
+    // parameters override theOptions for this request only.
+    // Errors after the reply has begun can't be sent, as the
+    // status is gone, so they're logged and the reply cut short.
+    private static void serve(HttpExchange theExchange, boolean impulse, EngineOptions theOptions)
+        throws IOException
+    {
+        try
+        {
+            final String theMethod = theExchange.getRequestMethod();
+            if (!theMethod.equals("GET") && !theMethod.equals("POST"))
+                {sendError(theExchange, 405, "Use GET or POST");}
+            else if (!theExchange.getRequestURI().getPath().equals(theExchange.getHttpContext().getPath()))
+                {sendError(theExchange, 404, "No such resource: " + theExchange.getRequestURI().getPath());}
+            else
+            {
+                Map<String, String> theParams = readParams(theExchange);
+                if (null == theParams) {sendError(theExchange, 413, "Request is over " + maxBody + " bytes");}
+                else if (impulse) {sendImpulse(theExchange, theParams, theOptions);}
+                else {sendResponse(theExchange, theParams, theOptions);}
+            }
+        }
+        catch(IllegalArgumentException e)
+        {
+            if (-1 == theExchange.getResponseCode()) {sendError(theExchange, 400, e.getMessage());}
+            else {System.err.println(theExchange.getRequestURI().getPath() + ": " + e.getMessage());}
+        }
+        catch(RuntimeException e)
+        {
+            if (-1 == theExchange.getResponseCode()) {sendError(theExchange, 500, e.toString());}
+            else {System.err.println(theExchange.getRequestURI().getPath() + ": " + e);}
+        }
+        finally {theExchange.close();}
+    }
+    
+    // form parameters from the query and, for POST, the body,
+    // or null if the body is too long
+    private static Map<String, String> readParams(HttpExchange theExchange) throws IOException
+    {
+        Map<String, String> theParams = new HashMap<String, String>();
+        addParams(theParams, theExchange.getRequestURI().getRawQuery());
+        if (theExchange.getRequestMethod().equals("POST"))
+        {
+            InputStream in = theExchange.getRequestBody();
+            ByteArrayOutputStream theBody = new ByteArrayOutputStream();
+            byte[] theBuff = new byte[8192];
+            int theCount;
+            while ((theCount = in.read(theBuff)) > 0)
+            {
+                if (theBody.size() + theCount > maxBody) {return null;}
+                theBody.write(theBuff, 0, theCount);
+            }
+            addParams(theParams, theBody.toString("UTF-8"));
+        }
+        return theParams;
+    }
+    
+    // decode name=value pairs separated by '&'
+    private static void addParams(Map<String, String> theParams, String theForm)
+        throws UnsupportedEncodingException
+    {
+        if ((null == theForm) || (0 == theForm.length())) {return;}
+        String[] thePairs = theForm.split("&");
+        int index;
+        for (index = 0; index < thePairs.length; index++)
+        {
+            final int theEquals = thePairs[index].indexOf('=');
+            if (theEquals < 0) {continue;}
+            theParams.put(URLDecoder.decode(thePairs[index].substring(0, theEquals), "UTF-8"),
+                URLDecoder.decode(thePairs[index].substring(theEquals + 1), "UTF-8"));
+        }
+    }
+    
+    // named parameter, or theDefault if absent
+    private static String param(Map<String, String> theParams, String theName, String theDefault)
+    {
+        final String theValue = theParams.get(theName);
+        return (null == theValue) ? theDefault : theValue.trim();
+    }
+    
+    // whole number parameter in the range (theMin...theLimit)
+    private static int count(Map<String, String> theParams, String theName, long theDefault,
+        int theMin, int theLimit)
+    {
+        final String theStr = param(theParams, theName, String.valueOf(theDefault));
+        long theValue;
+        try{theValue = Long.parseLong(theStr);}
+        catch(NumberFormatException e)
+            {throw new IllegalArgumentException("Couldn't parse " + theName + ": " + theStr);}
+        if ((theValue < theMin) || (theValue > theLimit))
+            {throw new IllegalArgumentException(theName + " must be " + theMin + " to " + theLimit + ": " + theStr);}
+        return (int) theValue;
+    }
+    
+    // true for binary replies, false for JSON
+    private static boolean binary(Map<String, String> theParams)
+    {
+        final String theFormat = param(theParams, "format", "json");
+        if (theFormat.equals("binary")) {return true;}
+        if (!theFormat.equals("json")) {throw new IllegalArgumentException("Unknown format: " + theFormat);}
+        return false;
+    }
+    
+    // filter from the num and den parameters, or null if it's over
+    // maxCoeffs coefficients in all; files can't be read
+    private static Cascade filter(Map<String, String> theParams)
+    {
+        final String denStr = param(theParams, "den", "1");
+        final double[][] numFactors = BodeBatch.parseFactors(param(theParams, "num", "1"), "numerator", false);
+        final double[][] denFactors = BodeBatch.parseFactors(denStr, "denominator", false);
+        if (coeffCount(numFactors) + coeffCount(denFactors) > maxCoeffs) {return null;}
+        return BodeBatch.makeFilter(numFactors, denFactors, denStr);
+    }
+    
+    // number of coefficients in all of someFactors
+    private static long coeffCount(double[][] someFactors)
+    {
+        long theCount = 0;
+        int index;
+        for (index = 0; index < someFactors.length; index++) {theCount += someFactors[index].length;}
+        return theCount;
+    }
+    
+    // frequency response, with peaks, notches and -3 dB points
+    private static void sendResponse(HttpExchange theExchange, Map<String, String> theParams,
+        EngineOptions theOptions) throws IOException
+    {
+        final Cascade theFilter = filter(theParams);
+        if (null == theFilter)
+        {
+            sendError(theExchange, 413, "Filter is over " + maxCoeffs + " coefficients");
+            return;
+        }
+        final double startFreq = BodeBatch.parseNonZero(param(theParams, "start", "100"), "start freq");
+        final int numDecades = BodeBatch.parseDecades(param(theParams, "decades", "2"));
+        final FreqUnits unitsRad = BodeBatch.parseUnits(param(theParams, "units", "cyc/sec"));
+        final double sampRate = BodeBatch.parseNonZero(param(theParams, "rate", "44100"), "sample rate");
+        final int numPoints = count(theParams, "points", theOptions.gridPoints(), 2, maxPoints);
+        final int refinePoints = count(theParams, "refine", theOptions.refinePoints(), 0, maxPoints);
+        final boolean asBinary = binary(theParams);
+        final FrequencyResponse theResponse = new FrequencyResponse(theFilter, startFreq, unitsRad,
+            sampRate, numDecades, theOptions.withGridPoints(numPoints).withRefinePoints(refinePoints),
+            ResponseCache.shared);
+        
+        // columns in the chosen units
+        final double[] theRadians = theResponse.freqs();
+        final double[] theReals = theResponse.reals();
+        final double[] theImags = theResponse.imags();
+        final int theCount = theRadians.length;
+        double[] theFreqs = new double[theCount];
+        double[] theGain = new double[theCount];
+        double[] thePhase = new double[theCount];
+        int index;
+        for (index = 0; index < theCount; index++)
+        {
+            final double theReal = theReals[index];
+            final double theImag = theImags[index];
+            theFreqs[index] = FreqGrid.fromRadians(theRadians[index], unitsRad, sampRate);
+            theGain[index] = 20. * Math.log10(Math.hypot(theReal, theImag));
+            thePhase[index] = Math.toDegrees(Math.atan2(theImag, theReal));
+        }
+        if (asBinary)
+        {
+            sendColumns(theExchange, new double[][] {theFreqs, theReals, theImags,
+                theGain, thePhase});
+            return;
+        }
+        
+        Writer out = startJson(theExchange);
+        out.write("{\"units\":\"" + FreqGrid.unitsNames[unitsRad.ordinal()] + "\",\"rate\":");
+        number(out, sampRate);
+        column(out, "freq", theFreqs);
+        column(out, "real", theReals);
+        column(out, "imag", theImags);
+        column(out, "gainDB", theGain);
+        column(out, "phaseDeg", thePhase);
+        out.write(",\"features\":[");
+        final double[][] theFeatures = theResponse.features();
+        for (index = 0; index < theFeatures.length; index++)
+        {
+            final double[] theRow = theFeatures[index];
+            out.write((index > 0) ? ",{\"kind\":\"" : "{\"kind\":\"");
+            out.write(FeatureFinder.kindNames[(int) theRow[0]]);
+            out.write("\",\"freq\":");
+            number(out, FreqGrid.fromRadians(theRow[1], unitsRad, sampRate));
+            out.write(",\"gainDB\":");
+            number(out, theRow[2]);
+            out.write('}');
+        }
+        out.write("]}");
+        out.close();
+    }
+    
+    // impulse and step function responses
+    private static void sendImpulse(HttpExchange theExchange, Map<String, String> theParams,
+        EngineOptions theOptions) throws IOException
+    {
+        final Cascade theFilter = filter(theParams);
+        if (null == theFilter)
+        {
+            sendError(theExchange, 413, "Filter is over " + maxCoeffs + " coefficients");
+            return;
+        }
+        final double sampRate = BodeBatch.parseNonZero(param(theParams, "rate", "44100"), "sample rate");
+        final int theLength = count(theParams, "length", Math.min(theOptions.impulseLength(), maxLength),
+            1, maxLength);
+        final String decayStr = param(theParams, "decay", String.valueOf(theOptions.decayThreshold()));
+        double theDecay;
+        try{theDecay = Math.max(0., Double.parseDouble(decayStr));}
+        catch(NumberFormatException e)
+            {throw new IllegalArgumentException("Couldn't parse decay: " + decayStr);}
+        final boolean asBinary = binary(theParams);
+        if ((long) theLength * (coeffCount(theFilter.numSections()) + coeffCount(theFilter.denSections()))
+            > maxImpulseWork)
+        {
+            sendError(theExchange, 413, "Length times coefficients is over " + maxImpulseWork);
+            return;
+        }
+        
+        // simulate, which may stop early once decayed
+        final double[] impulseOutput = new double[theLength];
+        final double[] stepFcnOutput = new double[theLength];
+        final int theCount = (int) ImpulseKernel.simulate(theFilter, theLength, theDecay, new ImpulseSink()
+        {
+            public void samples(long start, double[] impulse, double[] step, int count)
+            {
+                System.arraycopy(impulse, 0, impulseOutput, (int) start, count);
+                System.arraycopy(step, 0, stepFcnOutput, (int) start, count);
+            }
+        });
+        final double[] theImpulse = Arrays.copyOf(impulseOutput, theCount);
+        final double[] theStep = Arrays.copyOf(stepFcnOutput, theCount);
+        if (asBinary)
+        {
+            sendColumns(theExchange, new double[][] {theImpulse, theStep});
+            return;
+        }
+        
+        Writer out = startJson(theExchange);
+        out.write("{\"rate\":");
+        number(out, sampRate);
+        column(out, "impulse", theImpulse);
+        column(out, "step", theStep);
+        out.write('}');
+        out.close();
+    }
+    
+    // equal length columns of little endian doubles
+    private static void sendColumns(HttpExchange theExchange, double[][] theColumns) throws IOException
+    {
+        final int theRows = theColumns[0].length;
+        theExchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        theExchange.getResponseHeaders().set("X-Rows", String.valueOf(theRows));
+        theExchange.sendResponseHeaders(200, 8L * theRows * theColumns.length);
+        OutputStream out = theExchange.getResponseBody();
+        ByteBuffer theBuffer = ByteBuffer.allocate(8 * theRows).order(ByteOrder.LITTLE_ENDIAN);
+        int index;
+        for (index = 0; index < theColumns.length; index++)
+        {
+            theBuffer.clear();
+            theBuffer.asDoubleBuffer().put(theColumns[index]);
+            out.write(theBuffer.array(), 0, 8 * theRows);
+        }
+        out.close();
+    }
+    
+    // begin a JSON reply of unknown length
+    private static Writer startJson(HttpExchange theExchange) throws IOException
+    {
+        theExchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        theExchange.sendResponseHeaders(200, 0);
+        return new BufferedWriter(new OutputStreamWriter(theExchange.getResponseBody(), "UTF-8"), 65536);
+    }
+    
+    // write ,"theName":[...] to a JSON object
+    private static void column(Writer out, String theName, double[] theValues) throws IOException
+    {
+        out.write(",\"" + theName + "\":[");
+        int index;
+        for (index = 0; index < theValues.length; index++)
+        {
+            if (index > 0) {out.write(',');}
+            number(out, theValues[index]);
+        }
+        out.write(']');
+    }
+    
+    // JSON has no infinity or NaN, these are written as null
+    private static void number(Writer out, double aValue) throws IOException
+    {
+        if (Double.isNaN(aValue) || Double.isInfinite(aValue)) {out.write("null");}
+        else {out.write(Double.toString(aValue));}
+    }
+    
+    // error reply, as JSON with the message
+    private static void sendError(HttpExchange theExchange, int theCode, String theMsg) throws IOException
+    {
+        StringBuilder theText = new StringBuilder("{\"error\":\"");
+        int index;
+        for (index = 0; index < theMsg.length(); index++)
+        {
+            final char theChar = theMsg.charAt(index);
+            if (('"' == theChar) || ('\\' == theChar)) {theText.append('\\').append(theChar);}
+            else if (theChar < ' ') {theText.append(String.format("\\u%04x", (int) theChar));}
+            else {theText.append(theChar);}
+        }
+        theText.append("\"}");
+        final byte[] theBytes = theText.toString().getBytes("UTF-8");
+        theExchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        theExchange.sendResponseHeaders(theCode, theBytes.length);
+        theExchange.getResponseBody().write(theBytes);
+    }
+}
@@ -0,0 +1,117 @@
+package bodez.core;
+
+import java.util.*;
+
+//==========================================================\\
+// refines a frequency grid where the response changes fastest.
+// The interval with the largest change in gain or phase, in
+// Bode plot pixels, is split at its log midpoint, until the
+// point budget is spent or no interval changes by a pixel.
+// Midpoints are evaluated in rounds, so each kernel call sees
+// many frequencies at once.
+class AdaptiveGrid
+{
+    // smaller changes, in pixels, are not worth splitting
+    static final double minChange = 1.0;
+
+    // interval between two points, largest change first
+    private static class Interval implements Comparable<Interval>
+    {
+        final double change;
+        final int left;
+        final int right;
+
+        Interval(double aChange, int aLeft, int aRight)
+        {
+            change = aChange;
+            left = aLeft;
+            right = aRight;
+        }
+
+        public int compareTo(Interval other) {return Double.compare(other.change, change);}
+    }
+
+    // return {freqs, real, imag} in frequency order, holding the
+    // given grid and up to theBudget points added between them,
+    // evaluated with theOptions
+    static double[][] refine(Cascade theFilter, double[] theFreqs, double[] theReal, double[] theImag,
+        int theBudget, EngineOptions theOptions)
+    {
+        final int theTotal = theFreqs.length + theBudget;
+        double[] freqs = Arrays.copyOf(theFreqs, theTotal);
+        double[] real = Arrays.copyOf(theReal, theTotal);
+        double[] imag = Arrays.copyOf(theImag, theTotal);
+        
+        // points are kept in a linked list, in frequency order,
+        // so new ones are inserted without moving the others
+        int[] next = new int[theTotal];
+        PriorityQueue<Interval> theQueue = new PriorityQueue<Interval>();
+        int index;
+        for (index = 0; index < theFreqs.length; index++)
+        {
+            next[index] = index + 1;
+            if (index > 0) {offer(theQueue, freqs, real, imag, index - 1, index);}
+        }
+        if (theFreqs.length > 0) {next[theFreqs.length - 1] = -1;}
+        
+        int theCount = theFreqs.length;
+        while ((theCount < theTotal) && !theQueue.isEmpty())
+        {
+            // take the worst intervals, at most an eighth of the
+            // points left, and evaluate all their midpoints at once
+            final int theRound = Math.min(theQueue.size(),
+                Math.min(theTotal - theCount, Math.max(16, (theTotal - theCount) / 8)));
+            Interval[] theSplit = new Interval[theRound];
+            double[] midFreqs = new double[theRound];
+            for (index = 0; index < theRound; index++)
+            {
+                theSplit[index] = theQueue.poll();
+                midFreqs[index] = Math.sqrt(freqs[theSplit[index].left] * freqs[theSplit[index].right]);
+            }
+            double[] midReal = new double[theRound];
+            double[] midImag = new double[theRound];
+            ResponseKernel.computeCascade(theFilter, midFreqs, null, midReal, midImag, theOptions);
+            
+            // link in each midpoint, then queue both halves
+            for (index = 0; index < theRound; index++)
+            {
+                final int theMid = theCount++;
+                freqs[theMid] = midFreqs[index];
+                real[theMid] = midReal[index];
+                imag[theMid] = midImag[index];
+                next[theSplit[index].left] = theMid;
+                next[theMid] = theSplit[index].right;
+                offer(theQueue, freqs, real, imag, theSplit[index].left, theMid);
+                offer(theQueue, freqs, real, imag, theMid, theSplit[index].right);
+            }
+        }
+        
+        // copy out in frequency order
+        double[][] theReply = {new double[theCount], new double[theCount], new double[theCount]};
+        int thePoint = (theCount > 0) ? 0 : -1;
+        for (index = 0; thePoint >= 0; index++)
+        {
+            theReply[0][index] = freqs[thePoint];
+            theReply[1][index] = real[thePoint];
+            theReply[2][index] = imag[thePoint];
+            thePoint = next[thePoint];
+        }
+        return theReply;
+    }
+
+    // queue interval if it changes visibly and can still be split
+    private static void offer(PriorityQueue<Interval> theQueue, double[] freqs, double[] real,
+        double[] imag, int left, int right)
+    {
+        if (freqs[right] <= freqs[left] * (1. + 1.e-12)) {return;}
+        
+        // gain in dB at 5 pixels/dB, limited so that exact zeros
+        // still compare, and phase change at 120/pi pixels/radian
+        final double leftDB = Math.max(-300., 20. * Math.log10(Math.hypot(real[left], imag[left])));
+        final double rightDB = Math.max(-300., 20. * Math.log10(Math.hypot(real[right], imag[right])));
+        double thePhase = Math.atan2(imag[right], real[right]) - Math.atan2(imag[left], real[left]);
+        thePhase -= 2. * Math.PI * Math.round(thePhase / (2. * Math.PI));
+        final double theChange = Math.max(5. * Math.abs(rightDB - leftDB), 120. / Math.PI * Math.abs(thePhase));
+        if (theChange >= minChange) {theQueue.add(new Interval(theChange, left, right));}
+    }
+}
@@ -0,0 +1,61 @@
+package bodez.core;
+
+import java.util.*;
+
+//==========================================================\\
+// identifies a calculation: kind of result, filter sections,
+// and parameters such as the frequency grid.  Section arrays
+// are kept, not copied, since Cascade never lets them change.
+class CacheKey
+{
+    private final String theKind;
+    private final double[][] numSections;
+    private final double[][] denSections;
+    private final double[] theParams;
+    private final int theHash;
+    
+    // constructor with args
+    CacheKey(String aKind, Cascade theFilter, double[] someParams)
+    {
+        this(aKind, theFilter.sharedNumSections(), theFilter.sharedDenSections(), someParams);
+    }
+    
+    public int hashCode() {return theHash;}
+    
+    public boolean equals(Object anObject)
+    {
+        if (!(anObject instanceof CacheKey)) {return false;}
+        CacheKey other = (CacheKey) anObject;
+        return (theHash == other.theHash) && theKind.equals(other.theKind)
+            && Arrays.equals(theParams, other.theParams)
+            && Arrays.deepEquals(numSections, other.numSections)
+            && Arrays.deepEquals(denSections, other.denSections);
+    }
+    
+    // constructor for a single polynomial, such as one factor
+    CacheKey(String aKind, double[] theCoeff, double[] someParams)
+    {
+        this(aKind, new double[][] {theCoeff}, new double[0][], someParams);
+    }
+    
+    // constructor with all fields
+    private CacheKey(String aKind, double[][] someNums, double[][] someDens, double[] someParams)
+    {
+        theKind = aKind;
+        numSections = someNums;
+        denSections = someDens;
+        theParams = someParams;
+        theHash = ((theKind.hashCode() * 31 + Arrays.deepHashCode(numSections)) * 31
+            + Arrays.deepHashCode(denSections)) * 31 + Arrays.hashCode(theParams);
+    }
+    
+    // approximate memory used by the key itself
+    long sizeBytes()
+    {
+        long theSize = 8L * theParams.length + 64;
+        int index;
+        for (index = 0; index < numSections.length; index++) {theSize += 8L * numSections[index].length + 16;}
+        for (index = 0; index < denSections.length; index++) {theSize += 8L * denSections[index].length + 16;}
+        return theSize;
+    }
+}
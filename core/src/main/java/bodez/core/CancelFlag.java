@@ -0,0 +1,24 @@
+package bodez.core;
+
+import java.util.concurrent.*;
+
+//==========================================================\\
+// asks a calculation to stop early.  Given to the engine in
+// EngineOptions.withCancelFlag, it's checked between blocks of
+// work on whichever threads are doing it, including fork/join
+// workers that never see the caller's interrupt.
+public final class CancelFlag
+{
+    private volatile boolean isCancelled = false;
+    
+    // stop calculations using this flag at their next check
+    public void cancel() {isCancelled = true;}
+    
+    public boolean isCancelled() {return isCancelled;}
+    
+    // throw CancellationException if cancelled
+    public void check()
+    {
+        if (isCancelled) {throw new CancellationException("Calculation cancelled");}
+    }
+}
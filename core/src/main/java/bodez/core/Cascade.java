@@ -0,0 +1,107 @@
+package bodez.core;
+
+import java.util.*;
+
+//==========================================================\\
+// transfer function kept as a cascade of sections, one per
+// factor entered by the user.  Denominator factors above second
+// order are split into biquads, so that high-order filters stay
+// numerically stable.  Also holds the multiplied-out polynomials.
+// The factors are copied in and copies are handed out, so the
+// arrays shared by the engine and ResponseCache never change.
+public class Cascade
+{
+    // highest order denominator factor that will be split into biquads
+    static final int maxFactorOrder = 64;
+    
+    private final double[] nums;           // numerator coefficients
+    private final double[] dens;           // denominator coefficients
+    private final double[][] numSections;  // numerator of each section
+    private final double[][] denSections;  // denominator of each section
+    
+    // constructor with lists of numerator and denominator factors;
+    // the denominator is multiplied term by term, never by FFT,
+    // since its zero and leading coefficient are checked
+    public Cascade(double[][] someNums, double[][] someDens)
+    {
+        final double[][] numFactors = copyOf(someNums);
+        final double[][] denFactors = copyOf(someDens);
+        nums = Polynomial.multiplyAll(numFactors);
+        dens = Polynomial.multiplyAllDirect(denFactors);
+        
+        // split high-order denominator factors into biquads
+        ArrayList<double[]> denList = new ArrayList<double[]>();
+        int index;
+        for (index = 0; index < denFactors.length; index++)
+        {
+            double[] theFactor = denFactors[index];
+            double[][] theBiquads = null;
+            if ((theFactor.length > 3) && (theFactor.length <= maxFactorOrder + 1))
+                {theBiquads = Polynomial.toBiquads(theFactor);}
+            if (null == theBiquads) {denList.add(theFactor);}
+            else {denList.addAll(Arrays.asList(theBiquads));}
+        }
+        
+        // pair numerators with denominators, padding with unity
+        final int theSize = Math.max(1, Math.max(numFactors.length, denList.size()));
+        numSections = new double[theSize][];
+        denSections = new double[theSize][];
+        for (index = 0; index < theSize; index++)
+        {
+            numSections[index] = (index < numFactors.length) ? numFactors[index] : new double[] {1};
+            denSections[index] = (index < denList.size()) ? denList.get(index) : new double[] {1};
+        }
+    }
+    
+    // copy of each array in someArrays
+    private static double[][] copyOf(double[][] someArrays)
+    {
+        double[][] theCopy = new double[someArrays.length][];
+        int index;
+        for (index = 0; index < theCopy.length; index++) {theCopy[index] = someArrays[index].clone();}
+        return theCopy;
+    }
+    
+    // number of sections
+    public int size() {return numSections.length;}
+    
+    // copies of the multiplied-out polynomials, and of the
+    // numerators and denominators of the sections
+    public double[] nums() {return nums.clone();}
+    public double[] dens() {return dens.clone();}
+    public double[][] numSections() {return copyOf(numSections);}
+    public double[][] denSections() {return copyOf(denSections);}
+    
+    // the section arrays themselves, for the engine, which never
+    // modifies them
+    double[][] sharedNumSections() {return numSections;}
+    double[][] sharedDenSections() {return denSections;}
+    
+    // true if the impulse response can be simulated: neither
+    // polynomial is empty, and no section's denominator has
+    // a leading coefficient of zero
+    public boolean isRealizable()
+    {
+        if ((0 == nums.length) || (0 == dens.length)) {return false;}
+        int index;
+        for (index = 0; index < denSections.length; index++)
+        {
+            if ((0 == denSections[index].length) || (0. == denSections[index][0])) {return false;}
+        }
+        return true;
+    }
+    
+    // calculate complex response at all frequencies in theFreqs,
+    // in radians/sample, placing results in theReal, theImag;
+    // return extremes as {maxReal, minReal, maxImag, minImag}
+    public double[] evaluate(double[] theFreqs, double[] theReal, double[] theImag)
+    {
+        return evaluate(theFreqs, theReal, theImag, EngineOptions.defaults);
+    }
+    
+    // as above, with the evaluation set by theOptions
+    public double[] evaluate(double[] theFreqs, double[] theReal, double[] theImag, EngineOptions theOptions)
+    {
+        return ResponseKernel.computeCascade(this, theFreqs, null, theReal, theImag, theOptions);
+    }
+}
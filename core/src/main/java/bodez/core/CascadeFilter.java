@@ -0,0 +1,92 @@
+package bodez.core;
+
+//==========================================================\\
+// filter state for a cascade of sections, each section running
+// in Transposed Direct Form II with normalized coefficients.
+// State is kept between calls, so a long signal may be
+// filtered a block at a time.
+class CascadeFilter
+{
+    private final double[][] b;      // numerator of each section
+    private final double[][] a;      // denominator of each section
+    private final double[][] state;  // one value per order of each section
+    
+    // constructor with one arg, the transfer function; each
+    // section must have a nonzero leading denominator coefficient
+    CascadeFilter(Cascade theFilter)
+    {
+        final int theSize = theFilter.size();
+        b = new double[theSize][];
+        a = new double[theSize][];
+        state = new double[theSize][];
+        int index;
+        for (index = 0; index < theSize; index++)
+        {
+            final double[] nums = theFilter.sharedNumSections()[index];
+            final double[] dens = theFilter.sharedDenSections()[index];
+            if ((0 == dens.length) || (0. == dens[0]))
+                {throw new IllegalArgumentException("Denominator of section " + (index + 1) + " begins with zero");}
+            final int order = Math.max(nums.length, dens.length) - 1;
+            b[index] = new double[order + 1];
+            a[index] = new double[order + 1];
+            state[index] = new double[order + 1];
+            int inner;
+            for (inner = 0; inner < nums.length; inner++) {b[index][inner] = nums[inner] / dens[0];}
+            for (inner = 1; inner < dens.length; inner++) {a[index][inner] = dens[inner] / dens[0];}
+        }
+    }
+    
+    // filter first count samples of theSignal in place,
+    // through each section in turn
+    void filter(double[] theSignal, int count) {filter(theSignal, 0, count);}
+    
+    // filter samples [from...to-1] of theSignal in place; the
+    // state carries over, so a block filtered in pieces gives
+    // the same result as filtered whole
+    void filter(double[] theSignal, int from, int to)
+    {
+        int index;
+        for (index = 0; index < b.length; index++)
+        {
+            final double[] bs = b[index];
+            final double[] as = a[index];
+            final double[] ss = state[index];
+            final int order = bs.length - 1;
+            int outer;
+            for (outer = from; outer < to; outer++)
+            {
+                final double x = theSignal[outer];
+                final double y = bs[0] * x + ss[0];
+                int inner;
+                for (inner = 1; inner <= order; inner++)
+                {
+                    ss[inner - 1] = bs[inner] * x - as[inner] * y + ss[inner];
+                }
+                theSignal[outer] = y;
+            }
+        }
+    }
+    
+    // number of coefficients, about the multiply-adds per sample
+    int sampleWork()
+    {
+        int theWork = 0;
+        int index;
+        for (index = 0; index < b.length; index++) {theWork += b[index].length;}
+        return theWork;
+    }
+    
+    // sum of magnitudes of all state values, zero once
+    // the filter has completely settled
+    double stateNorm()
+    {
+        double theNorm = 0.;
+        int index;
+        for (index = 0; index < state.length; index++)
+        {
+            int inner;
+            for (inner = 0; inner < state[index].length; inner++) {theNorm += Math.abs(state[index][inner]);}
+        }
+        return theNorm;
+    }
+}
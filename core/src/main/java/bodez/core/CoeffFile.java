@@ -0,0 +1,56 @@
+package bodez.core;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+//==========================================================\\
+// reads coefficients from a memory mapped file, given as
+// "path" for text in the usual syntax, or "f64:path" or
+// "f32:path" for raw little endian floating point values
+class CoeffFile
+{
+    static double[][] readFactors(String theSpec) throws IOException
+    {
+        int theWidth = 0;
+        if (theSpec.startsWith("f64:")) {theWidth = 8; theSpec = theSpec.substring(4);}
+        else if (theSpec.startsWith("f32:")) {theWidth = 4; theSpec = theSpec.substring(4);}
+        final ByteBuffer theBuffer = map(Paths.get(theSpec));
+        
+        // text is parsed in place, without building a String
+        if (0 == theWidth)
+        {
+            try {return CoeffParser.parseFactors(new MappedChars(theBuffer, 0, theBuffer.limit()));}
+            catch (NumberFormatException e)
+                {throw new IOException(theSpec + ": " + e.getMessage());}
+        }
+        
+        // raw values form a single factor
+        if (0 != (theBuffer.limit() % theWidth))
+            {throw new IOException(theSpec + ": length is not a multiple of " + theWidth + " bytes");}
+        theBuffer.order(ByteOrder.LITTLE_ENDIAN);
+        double[] theCoeff = new double[theBuffer.limit() / theWidth];
+        if (8 == theWidth) {theBuffer.asDoubleBuffer().get(theCoeff);}
+        else
+        {
+            final FloatBuffer theFloats = theBuffer.asFloatBuffer();
+            int index;
+            for (index = 0; index < theCoeff.length; index++) {theCoeff[index] = theFloats.get(index);}
+        }
+        return (0 == theCoeff.length) ? new double[0][] : new double[][] {theCoeff};
+    }
+
+    // map whole file read only, the channel may close once mapped
+    static ByteBuffer map(Path thePath) throws IOException
+    {
+        try (FileChannel theChannel = FileChannel.open(thePath, StandardOpenOption.READ))
+        {
+            final long theSize = theChannel.size();
+            if (theSize > Integer.MAX_VALUE)
+                {throw new IOException(thePath + ": file is too large");}
+            return theChannel.map(FileChannel.MapMode.READ_ONLY, 0, theSize);
+        }
+        catch (NoSuchFileException e) {throw new IOException(thePath + ": no such file");}
+    }
+}
@@ -0,0 +1,156 @@
+package bodez.core;
+
+import java.util.*;
+
+//==========================================================\\
+// single pass coefficient parser, reads any CharSequence
+// (a text field, or a mapped file) without copying it; numbers
+// are separated by whitespace or commas, factors are closed by
+// ')', ']' or ';', and '(' or '[' are ignored
+class CoeffParser
+{
+    // longest part of a bad token quoted in an error message
+    static final int maxQuoted = 32;
+
+    // exact powers of ten, for the fast conversion path
+    private static final double[] powersOfTen = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    // parse list of factors, empty factors are dropped
+    static double[][] parseFactors(CharSequence theText)
+    {
+        return parse(theText, true);
+    }
+
+    // parse one plain list of coefficients
+    static double[] parseCoeffs(CharSequence theText)
+    {
+        final double[][] theFactors = parse(theText, false);
+        return (0 == theFactors.length) ? new double[0] : theFactors[0];
+    }
+
+    private static double[][] parse(CharSequence theText, boolean allowFactors)
+    {
+        final int theLength = theText.length();
+        ArrayList<double[]> theFactors = new ArrayList<double[]>();
+        double[] theCoeff = new double[16];
+        int count = 0;
+        int index = 0;
+        while (index < theLength)
+        {
+            final char theChar = theText.charAt(index);
+            if (isSpace(theChar)) {index++; continue;}
+            if ((')' == theChar) || (']' == theChar) || (';' == theChar))
+            {
+                if (!allowFactors) {throw badToken(theText, index, index + 1);}
+                if (count > 0) {theFactors.add(Arrays.copyOf(theCoeff, count));}
+                count = 0;
+                index++;
+                continue;
+            }
+            
+            // find extent of this number, then convert it
+            int theEnd = index + 1;
+            while ((theEnd < theLength) && !isSeparator(theText.charAt(theEnd))) {theEnd++;}
+            if (count == theCoeff.length) {theCoeff = Arrays.copyOf(theCoeff, 2 * count);}
+            theCoeff[count++] = parseNumber(theText, index, theEnd);
+            index = theEnd;
+        }
+        if (count > 0) {theFactors.add(Arrays.copyOf(theCoeff, count));}
+        return theFactors.toArray(new double[theFactors.size()][]);
+    }
+
+    // whitespace, commas and opening brackets only separate numbers
+    private static boolean isSpace(char theChar)
+    {
+        return (theChar <= ' ') || (',' == theChar) || ('(' == theChar) || ('[' == theChar);
+    }
+
+    private static boolean isSeparator(char theChar)
+    {
+        return isSpace(theChar) || (')' == theChar) || (']' == theChar) || (';' == theChar);
+    }
+
+    // convert text[start...end-1] to a double, plain decimals with
+    // up to 18 significant digits and a small exponent are exact in
+    // double arithmetic (Clinger's fast path), anything else goes
+    // to Double.parseDouble, which gives the identical result
+    static double parseNumber(CharSequence theText, int start, int end)
+    {
+        int index = start;
+        boolean negative = false;
+        char theChar = theText.charAt(index);
+        if (('-' == theChar) || ('+' == theChar))
+        {
+            negative = ('-' == theChar);
+            index++;
+        }
+        
+        // mantissa digits, counting those after the point
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean anyDigit = false;
+        boolean pointSeen = false;
+        for (; index < end; index++)
+        {
+            theChar = theText.charAt(index);
+            if (('.' == theChar) && !pointSeen) {pointSeen = true; continue;}
+            if ((theChar < '0') || (theChar > '9')) {break;}
+            anyDigit = true;
+            if ((0 == mantissa) && ('0' == theChar)) {if (pointSeen) {scale--;} continue;}
+            if (digits >= 18) {return parseSlow(theText, start, end);}
+            mantissa = 10 * mantissa + (theChar - '0');
+            digits++;
+            if (pointSeen) {scale--;}
+        }
+        if (!anyDigit) {return parseSlow(theText, start, end);}
+        
+        // optional exponent
+        if ((index < end) && (('e' == theChar) || ('E' == theChar)))
+        {
+            index++;
+            boolean expNegative = false;
+            if ((index < end) && (('-' == theText.charAt(index)) || ('+' == theText.charAt(index))))
+            {
+                expNegative = ('-' == theText.charAt(index));
+                index++;
+            }
+            int exponent = 0;
+            boolean expDigit = false;
+            for (; index < end; index++)
+            {
+                theChar = theText.charAt(index);
+                if ((theChar < '0') || (theChar > '9')) {break;}
+                expDigit = true;
+                if (exponent < 10000) {exponent = 10 * exponent + (theChar - '0');}
+            }
+            if (!expDigit) {return parseSlow(theText, start, end);}
+            scale += expNegative ? -exponent : exponent;
+        }
+        if (index != end) {return parseSlow(theText, start, end);}
+        
+        if (0 == mantissa) {return negative ? -0.0 : 0.0;}
+        if ((mantissa >= (1L << 53)) || (scale < -22) || (scale > 22))
+            {return parseSlow(theText, start, end);}
+        final double theValue = (scale < 0) ? mantissa / powersOfTen[-scale]
+            : mantissa * powersOfTen[scale];
+        return negative ? -theValue : theValue;
+    }
+
+    private static double parseSlow(CharSequence theText, int start, int end)
+    {
+        try {return Double.parseDouble(theText.subSequence(start, end).toString());}
+        catch (NumberFormatException e) {throw badToken(theText, start, end);}
+    }
+
+    // error message names the offset, and quotes a bounded excerpt
+    private static NumberFormatException badToken(CharSequence theText, int start, int end)
+    {
+        final int theStop = Math.min(end, start + maxQuoted);
+        String theToken = theText.subSequence(start, theStop).toString();
+        if (theStop < end) {theToken += "...";}
+        return new NumberFormatException("at offset " + start + ": " + theToken);
+    }
+}
@@ -0,0 +1,145 @@
+package bodez.core;
+
+import java.util.concurrent.*;
+
+//==========================================================\\
+// settings for evaluating and simulating filters, as given by
+// the command line options shared by BodeZ and the bodez.cli
+// batch and server front ends, and a flag to cancel the work.
+// Instances never change, so each plot or request can carry
+// its own; apply and the with methods return modified copies.
+public final class EngineOptions
+{
+    public static final String usage = "[--parallel] [--direct] [--scalar] [--impulse=N] [--decay=T] [--points=N] [--refine=N]";
+
+    // settings when no options are given
+    public static final EngineOptions defaults = new EngineOptions(false, true, true, 512, 0., 601, 0, null);
+
+    // when true, split frequency list across the fork/join pool
+    private final boolean parallel;
+
+    // when false, never use the non-uniform FFT for long polynomials
+    private final boolean fastFourier;
+
+    // when false, never use the SIMD kernel even if it's loaded
+    private final boolean vector;
+
+    // number of impulse samples to simulate, and when above zero,
+    // stop once the response has decayed below this fraction of
+    // its peak magnitude
+    private final long impulseLength;
+    private final double decayThreshold;
+
+    // number of frequencies in each grid, 601 gives one per pixel
+    // column, and extra points allowed where the response changes
+    // fastest, zero leaves grids as they are
+    private final int gridPoints;
+    private final int refinePoints;
+
+    // checked as calculations go, or null if they can't be
+    // cancelled except by interrupting the calling thread
+    private final CancelFlag cancelFlag;
+
+    // constructor with all args
+    private EngineOptions(boolean isParallel, boolean isFourier, boolean isVector, long theLength,
+        double theThreshold, int numPoints, int numRefine, CancelFlag theFlag)
+    {
+        parallel = isParallel;
+        fastFourier = isFourier;
+        vector = isVector;
+        impulseLength = theLength;
+        decayThreshold = theThreshold;
+        gridPoints = numPoints;
+        refinePoints = numRefine;
+        cancelFlag = theFlag;
+    }
+
+    // current settings
+    public boolean isParallel() {return parallel;}
+    public boolean isFastFourier() {return fastFourier;}
+    public long impulseLength() {return impulseLength;}
+    public double decayThreshold() {return decayThreshold;}
+    public int gridPoints() {return gridPoints;}
+    public int refinePoints() {return refinePoints;}
+    public CancelFlag cancelFlag() {return cancelFlag;}
+
+    // polynomial evaluator to use, null for scalar code only
+    RangeKernel rangeKernel() {return vector ? ResponseKernel.loadedKernel : null;}
+
+    // throw CancellationException if the flag was set, or the
+    // calling thread interrupted, leaving its interrupt status
+    void checkCancelled()
+    {
+        if (null != cancelFlag) {cancelFlag.check();}
+        if (Thread.currentThread().isInterrupted()) {throw new CancellationException("Calculation interrupted");}
+    }
+
+    // describe the polynomial evaluator in use
+    public String kernelName()
+    {
+        final RangeKernel theKernel = rangeKernel();
+        return (null == theKernel) ? "scalar" : theKernel.toString();
+    }
+
+    // copies with one setting changed, for front ends that take
+    // settings per request
+    public EngineOptions withImpulseLength(long theLength)
+    {
+        return new EngineOptions(parallel, fastFourier, vector, Math.max(1, theLength), decayThreshold,
+            gridPoints, refinePoints, cancelFlag);
+    }
+
+    public EngineOptions withDecayThreshold(double theThreshold)
+    {
+        return new EngineOptions(parallel, fastFourier, vector, impulseLength, Math.max(0., theThreshold),
+            gridPoints, refinePoints, cancelFlag);
+    }
+
+    public EngineOptions withGridPoints(int numPoints)
+    {
+        return new EngineOptions(parallel, fastFourier, vector, impulseLength, decayThreshold,
+            Math.max(2, numPoints), refinePoints, cancelFlag);
+    }
+
+    public EngineOptions withRefinePoints(int numRefine)
+    {
+        return new EngineOptions(parallel, fastFourier, vector, impulseLength, decayThreshold,
+            gridPoints, Math.max(0, numRefine), cancelFlag);
+    }
+
+    // copy whose calculations stop when theFlag is cancelled,
+    // one flag for each plot or request
+    public EngineOptions withCancelFlag(CancelFlag theFlag)
+    {
+        return new EngineOptions(parallel, fastFourier, vector, impulseLength, decayThreshold,
+            gridPoints, refinePoints, theFlag);
+    }
+
+    // return a copy with one option applied, or null if it's not
+    // recognized; throws NumberFormatException if its value can't
+    // be parsed.  --cache isn't one of these, as it sizes the cache
+    // shared by all settings, once, when a front end starts.
+    public EngineOptions apply(String theArg)
+    {
+        if (theArg.equals("--parallel"))
+        {
+            return new EngineOptions(true, fastFourier, vector, impulseLength, decayThreshold,
+                gridPoints, refinePoints, cancelFlag);
+        }
+        else if (theArg.equals("--direct"))
+        {
+            return new EngineOptions(parallel, false, vector, impulseLength, decayThreshold,
+                gridPoints, refinePoints, cancelFlag);
+        }
+        else if (theArg.equals("--scalar"))
+        {
+            return new EngineOptions(parallel, fastFourier, false, impulseLength, decayThreshold,
+                gridPoints, refinePoints, cancelFlag);
+        }
+        else if (theArg.startsWith("--impulse=")) {return withImpulseLength(Long.parseLong(theArg.substring(10)));}
+        else if (theArg.startsWith("--decay=")) {return withDecayThreshold(Double.parseDouble(theArg.substring(8)));}
+        else if (theArg.startsWith("--points=")) {return withGridPoints(Integer.parseInt(theArg.substring(9)));}
+        else if (theArg.startsWith("--refine=")) {return withRefinePoints(Integer.parseInt(theArg.substring(9)));}
+        return null;
+    }
+}
@@ -0,0 +1,79 @@
+package bodez.core;
+
+//==========================================================\\
+// minimum and maximum of a long series of values in at most
+// maxBuckets equal buckets.  When the buckets are full,
+// neighbouring pairs are merged and each bucket doubles in size,
+// so memory stays fixed however many values are added.  Only
+// this package adds values, so a finished envelope can be
+// shared through the cache.
+public class Envelope
+{
+    public static final int maxBuckets = 1024;
+    
+    private final double[] minValues = new double[maxBuckets];
+    private final double[] maxValues = new double[maxBuckets];
+    private int numBuckets = 0;       // buckets in use
+    private long bucketSize = 1;      // values per bucket
+    private long inBucket = 0;
+    private double theMin =  1.e10;   // over the whole series
+    private double theMax = -1.e10;
+    
+    // constructor with no args, for this package only
+    Envelope() {}
+    
+    // number of buckets in use
+    public int size() {return numBuckets;}
+    
+    // number of values in each bucket
+    public long bucketSize() {return bucketSize;}
+    
+    // least and greatest values in bucket index
+    public double minValue(int index) {return minValues[checkIndex(index)];}
+    public double maxValue(int index) {return maxValues[checkIndex(index)];}
+    
+    // least and greatest values in the whole series
+    public double minimum() {return theMin;}
+    public double maximum() {return theMax;}
+    
+    // add the next value in the series
+    void add(double aValue)
+    {
+        if (0 == inBucket)
+        {
+            if (numBuckets == maxBuckets) {halve();}
+            minValues[numBuckets] = aValue;
+            maxValues[numBuckets] = aValue;
+            numBuckets++;
+        }
+        else
+        {
+            minValues[numBuckets - 1] = Math.min(minValues[numBuckets - 1], aValue);
+            maxValues[numBuckets - 1] = Math.max(maxValues[numBuckets - 1], aValue);
+        }
+        if (++inBucket == bucketSize) {inBucket = 0;}
+        theMin = Math.min(theMin, aValue);
+        theMax = Math.max(theMax, aValue);
+    }
+    
+    // merge neighbouring buckets, doubling bucket size
+    private void halve()
+    {
+        int index;
+        for (index = 0; index < numBuckets / 2; index++)
+        {
+            minValues[index] = Math.min(minValues[2 * index], minValues[2 * index + 1]);
+            maxValues[index] = Math.max(maxValues[2 * index], maxValues[2 * index + 1]);
+        }
+        numBuckets /= 2;
+        bucketSize *= 2;
+    }
+    
+    // buckets past numBuckets hold stale values
+    private int checkIndex(int index)
+    {
+        if ((index < 0) || (index >= numBuckets))
+            {throw new IndexOutOfBoundsException("Bucket " + index + " of " + numBuckets);}
+        return index;
+    }
+}
@@ -0,0 +1,211 @@
+package bodez.core;
+
+import java.util.*;
+
+//==========================================================\\
+// this class holds only static methods, no instance data
+// finds peaks, notches and half power (-3 dB) points below the
+// Nyquist limit.  Candidates are bracketed on the computed grid,
+// then solved with Brent's method calling the filter directly:
+// extremes as zeros of the slope of ln|H|, half power points as
+// zeros of the gain less the level.  Each takes a few dozen
+// evaluations to reach about 1e-13 relative in frequency.
+public class FeatureFinder
+{
+    // kinds of feature, in the first column of each row
+    public static final int peak = 0;
+    public static final int notch = 1;
+    public static final int halfPower = 2;
+    public static final String kindNames[] = {"Peak", "Notch", "-3 dB"};
+
+    // at most this many of each kind, strongest first
+    public static final int maxEach = 16;
+
+    // half power, relative to the passband gain
+    static final double halfPowerDB = 10. * Math.log10(0.5);
+
+    // returns rows {kind, freq in radians/sample, gain in dB},
+    // in frequency order
+    public static double[][] find(Cascade theFilter, double[] theFreqs, double[] theReal, double[] theImag)
+    {
+        return find(theFilter, theFreqs, theReal, theImag, EngineOptions.defaults);
+    }
+    
+    // as above, checking theOptions for cancellation before each
+    // feature is solved, since each may take many evaluations
+    public static double[][] find(Cascade theFilter, double[] theFreqs, double[] theReal, double[] theImag,
+        EngineOptions theOptions)
+    {
+        // gain on the grid, below the Nyquist limit
+        int theCount = 0;
+        while ((theCount < theFreqs.length) && (theFreqs[theCount] < Math.PI)) {theCount++;}
+        double[] theDB = new double[theCount];
+        double maxDB = Double.NEGATIVE_INFINITY;
+        int index;
+        for (index = 0; index < theCount; index++)
+        {
+            theDB[index] = 20. * Math.log10(Math.hypot(theReal[index], theImag[index]));
+            maxDB = Math.max(maxDB, theDB[index]);
+        }
+        
+        // local extremes, solved where the slope changes sign
+        ArrayList<double[]> thePeaks = new ArrayList<double[]>();
+        ArrayList<double[]> theNotches = new ArrayList<double[]>();
+        for (index = 1; index < theCount - 1; index++)
+        {
+            final boolean isPeak = (theDB[index] > theDB[index-1]) && (theDB[index] >= theDB[index+1]);
+            final boolean isNotch = (theDB[index] < theDB[index-1]) && (theDB[index] <= theDB[index+1]);
+            if (!isPeak && !isNotch) {continue;}
+            theOptions.checkCancelled();
+            final double[] theRow = solve(theFilter, isPeak ? peak : notch, 0.,
+                theFreqs[index-1], theFreqs[index+1]);
+            if (null == theRow) {continue;}
+            if (isPeak) {thePeaks.add(theRow); maxDB = Math.max(maxDB, theRow[2]);}
+            else {theNotches.add(theRow);}
+        }
+        
+        // half power crossings, relative to the passband gain:
+        // the highest of the peaks and the gain at DC (low-pass)
+        // or Nyquist (high-pass), solved directly since the grid
+        // may not reach them
+        maxDB = Math.max(maxDB, edgeGain(theFilter, 0.));
+        maxDB = Math.max(maxDB, edgeGain(theFilter, Math.PI));
+        ArrayList<double[]> theHalves = new ArrayList<double[]>();
+        final double theLevel = maxDB + halfPowerDB;
+        for (index = 1; (index < theCount) && (theHalves.size() < maxEach); index++)
+        {
+            if ((theDB[index-1] >= theLevel) == (theDB[index] >= theLevel)) {continue;}
+            theOptions.checkCancelled();
+            final double[] theRow = solve(theFilter, halfPower, theLevel,
+                theFreqs[index-1], theFreqs[index]);
+            if (null != theRow) {theHalves.add(theRow);}
+        }
+        
+        // keep the highest peaks and deepest notches
+        Collections.sort(thePeaks, new Comparator<double[]>()
+            {public int compare(double[] a, double[] b) {return Double.compare(b[2], a[2]);}});
+        Collections.sort(theNotches, new Comparator<double[]>()
+            {public int compare(double[] a, double[] b) {return Double.compare(a[2], b[2]);}});
+        ArrayList<double[]> theRows = new ArrayList<double[]>();
+        theRows.addAll(thePeaks.subList(0, Math.min(maxEach, thePeaks.size())));
+        theRows.addAll(theNotches.subList(0, Math.min(maxEach, theNotches.size())));
+        theRows.addAll(theHalves);
+        Collections.sort(theRows, new Comparator<double[]>()
+            {public int compare(double[] a, double[] b) {return Double.compare(a[1], b[1]);}});
+        return theRows.toArray(new double[theRows.size()][]);
+    }
+
+    // gain in dB at w, or minus infinity where it isn't finite,
+    // such as at a pole on the unit circle
+    private static double edgeGain(Cascade theFilter, double w)
+    {
+        final double theGain = evaluate(theFilter, w)[0];
+        return (Double.isNaN(theGain) || Double.isInfinite(theGain)) ? Double.NEGATIVE_INFINITY : theGain;
+    }
+
+    // solve for one feature within [low...high], null if the
+    // bracket doesn't hold a sign change after all
+    private static double[] solve(Cascade theFilter, int theKind, double theLevel, double low, double high)
+    {
+        final int which = (halfPower == theKind) ? 0 : 1;
+        double a = low;
+        double b = high;
+        double fa = evaluate(theFilter, a)[which] - theLevel * (1 - which);
+        double fb = evaluate(theFilter, b)[which] - theLevel * (1 - which);
+        if ((fa > 0) == (fb > 0)) {return null;}
+        
+        // Brent's method: inverse quadratic interpolation or
+        // secant steps, falling back to bisection when they stall
+        double c = a;
+        double fc = fa;
+        double d = b - a;
+        double e = d;
+        int count;
+        for (count = 0; count < 200; count++)
+        {
+            if ((fb > 0) == (fc > 0)) {c = a; fc = fa; d = b - a; e = d;}
+            if (Math.abs(fc) < Math.abs(fb))
+            {
+                a = b; b = c; c = a;
+                fa = fb; fb = fc; fc = fa;
+            }
+            final double tol = 1.e-14 * Math.abs(b) + Double.MIN_NORMAL;
+            final double m = 0.5 * (c - b);
+            if ((Math.abs(m) <= tol) || (0. == fb)) {break;}
+            if ((Math.abs(e) >= tol) && (Math.abs(fa) > Math.abs(fb)))
+            {
+                double p, q;
+                final double s = fb / fa;
+                if (a == c) {p = 2. * m * s; q = 1. - s;}
+                else
+                {
+                    final double r = fb / fc;
+                    final double t = fa / fc;
+                    p = s * (2. * m * t * (t - r) - (b - a) * (r - 1.));
+                    q = (t - 1.) * (r - 1.) * (s - 1.);
+                }
+                if (p > 0) {q = -q;} else {p = -p;}
+                if ((2. * p < 3. * m * q - Math.abs(tol * q)) && (p < Math.abs(0.5 * e * q)))
+                    {e = d; d = p / q;}
+                else {d = m; e = m;}
+            }
+            else {d = m; e = m;}
+            a = b;
+            fa = fb;
+            b += (Math.abs(d) > tol) ? d : Math.copySign(tol, m);
+            final double[] theValue = evaluate(theFilter, b);
+            fb = theValue[which] - theLevel * (1 - which);
+        }
+        return new double[] {theKind, b, evaluate(theFilter, b)[0]};
+    }
+
+    // at frequency w in radians/sample, returns {gain in dB,
+    // slope of ln|H| with respect to w}, summed over sections
+    // so that long cascades neither overflow nor underflow
+    public static double[] evaluate(Cascade theFilter, double w)
+    {
+        final double zReal = Math.cos(w);
+        final double zImag = -Math.sin(w);
+        double theLog = 0;
+        double theSlope = 0;
+        int index;
+        for (index = 0; index < theFilter.size(); index++)
+        {
+            final double[] theNum = section(theFilter.sharedNumSections()[index], zReal, zImag);
+            final double[] theDen = section(theFilter.sharedDenSections()[index], zReal, zImag);
+            theLog += theNum[0] - theDen[0];
+            theSlope += theNum[1] - theDen[1];
+        }
+        return new double[] {20. / Math.log(10.) * theLog, theSlope};
+    }
+
+    // returns {ln|P|, Re(P'/P)} for P = sum of coeff[k] z^k at
+    // z = e^-jw, where P' = dP/dw = -jz dP/dz
+    private static double[] section(double[] coeff, double zReal, double zImag)
+    {
+        if (0 == coeff.length) {return new double[] {Double.NEGATIVE_INFINITY, 0.};}
+        
+        // Horner's rule for the polynomial and its z derivative
+        double pReal = coeff[coeff.length - 1];
+        double pImag = 0;
+        double qReal = 0;
+        double qImag = 0;
+        int index;
+        for (index = coeff.length - 2; index >= 0; index--)
+        {
+            final double tReal = qReal*zReal - qImag*zImag + pReal;
+            qImag = qReal*zImag + qImag*zReal + pImag;
+            qReal = tReal;
+            final double uReal = pReal*zReal - pImag*zImag + coeff[index];
+            pImag = pReal*zImag + pImag*zReal;
+            pReal = uReal;
+        }
+        
+        // dP/dw = -j z q, slope is Re(dP/dw conj(P)) / |P|^2
+        final double aReal = qReal*zReal - qImag*zImag;
+        final double aImag = qReal*zImag + qImag*zReal;
+        final double theNorm = pReal*pReal + pImag*pImag;
+        final double theSlope = (0. == theNorm) ? 0. : (aImag*pReal - aReal*pImag) / theNorm;
+        return new double[] {Math.log(Math.hypot(pReal, pImag)), theSlope};
+    }
+}
@@ -0,0 +1,69 @@
+package bodez.core;
+
+//==========================================================\\
+// this class holds only static methods, no instance data
+// in-place radix-2 fast Fourier transform on parallel arrays
+class FourierTransform
+{
+    // transform arrays whose length is a power of two,
+    // sign is -1 for forward, +1 for inverse (not scaled)
+    static void transform(double[] theReal, double[] theImag, int sign)
+    {
+        final int size = theReal.length;
+        
+        // bit reversal permutation
+        int index;
+        int other = 0;
+        for (index = 1; index < size; index++)
+        {
+            int bit = size >> 1;
+            for (; 0 != (other & bit); bit >>= 1) {other ^= bit;}
+            other ^= bit;
+            if (index < other)
+            {
+                double temp = theReal[index];
+                theReal[index] = theReal[other];
+                theReal[other] = temp;
+                temp = theImag[index];
+                theImag[index] = theImag[other];
+                theImag[other] = temp;
+            }
+        }
+        
+        // twiddle factors computed directly for accuracy
+        final int halfSize = size >> 1;
+        double[] cosTable = new double[halfSize];
+        double[] sinTable = new double[halfSize];
+        for (index = 0; index < halfSize; index++)
+        {
+            cosTable[index] = Math.cos(2. * Math.PI * index / size);
+            sinTable[index] = sign * Math.sin(2. * Math.PI * index / size);
+        }
+        
+        // butterflies, doubling length at each stage
+        int length;
+        for (length = 2; length <= size; length <<= 1)
+        {
+            final int halfLength = length >> 1;
+            final int stride = size / length;
+            int start;
+            for (start = 0; start < size; start += length)
+            {
+                int inner;
+                for (inner = 0; inner < halfLength; inner++)
+                {
+                    final double wReal = cosTable[inner * stride];
+                    final double wImag = sinTable[inner * stride];
+                    final int upper = start + inner;
+                    final int lower = upper + halfLength;
+                    final double tReal = theReal[lower]*wReal - theImag[lower]*wImag;
+                    final double tImag = theReal[lower]*wImag + theImag[lower]*wReal;
+                    theReal[lower] = theReal[upper] - tReal;
+                    theImag[lower] = theImag[upper] - tImag;
+                    theReal[upper] += tReal;
+                    theImag[upper] += tImag;
+                }
+            }
+        }
+    }
+}
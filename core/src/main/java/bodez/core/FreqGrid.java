@@ -0,0 +1,74 @@
+package bodez.core;
+
+//==========================================================\\
+// this class holds only static methods, no instance data
+// builds lists of frequencies, converts units of frequency
+public class FreqGrid
+{
+    // names of units, in the same order as FreqUnits
+    public static final String unitsNames[] = {"rad/samp", "cyc/samp", "rad/sec", "cyc/sec"};
+    
+    // find units of frequency from name, or null if unknown
+    public static FreqUnits parseUnits(String theStr)
+    {
+        int index;
+        for (index = 0; index < unitsNames.length; index++)
+        {
+            if (unitsNames[index].equals(theStr)) {return FreqUnits.values()[index];}
+        }
+        return null;
+    }
+    
+    // convert frequency in chosen units to radians/sample
+    public static double toRadians(double aFreq, FreqUnits unitsRad, double sampRate)
+    {
+        switch (unitsRad)
+        {
+            case cycSamp: aFreq *= (2. * Math.PI); break;
+            case radSec:  aFreq /= sampRate; break;
+            case cycSec:  aFreq /= (sampRate / 2. / Math.PI); break;
+        }
+        return aFreq;
+    }
+    
+    // convert frequency in radians/sample to chosen units
+    public static double fromRadians(double aFreq, FreqUnits unitsRad, double sampRate)
+    {
+        switch (unitsRad)
+        {
+            case cycSamp: aFreq /= (2. * Math.PI); break;
+            case radSec:  aFreq *= sampRate; break;
+            case cycSec:  aFreq *= (sampRate / 2. / Math.PI); break;
+        }
+        return aFreq;
+    }
+    
+    // list of numPoints frequencies in radians/sample, evenly
+    // spaced on a log scale over numDecades from startFreq
+    public static double[] logGrid(double startFreq, FreqUnits unitsRad, double sampRate,
+        int numDecades, int numPoints)
+    {
+        double[] theFreqs = new double[numPoints];
+        theFreqs[0] = toRadians(startFreq, unitsRad, sampRate);
+        int index;
+        
+        // default grid, built by repeated ratios as it always was
+        if (601 == numPoints)
+        {
+            final int theRange = 600 / numDecades;
+            for (index = 1; index < theFreqs.length; index++)
+            {
+                // find next frequency in radians/sample as a ratio
+                theFreqs[index] = Math.pow(10.0, 1.0/theRange)*theFreqs[index-1]; 
+            }
+            return theFreqs;
+        }
+        
+        // other sizes use direct powers, so long grids don't drift
+        for (index = 1; index < theFreqs.length; index++)
+        {
+            theFreqs[index] = theFreqs[0] * Math.pow(10.0, (double) numDecades * index / (numPoints - 1));
+        }
+        return theFreqs;
+    }
+}
@@ -0,0 +1,4 @@
+package bodez.core;
+
+// units of measure for horizontal axis
+public enum FreqUnits {radSamp, cycSamp, radSec, cycSec};
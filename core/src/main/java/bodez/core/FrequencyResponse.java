@@ -0,0 +1,145 @@
+package bodez.core;
+
+import java.io.*;
+
+//==========================================================\\
+// complex frequency response of one filter over a log grid of
+// frequencies, with its peaks, notches and half power points.
+// The grid has the number of points set by --points, refined
+// by --refine, as held in the options.  Arrays may be shared
+// through the cache, so they are private and returned as copies.
+public class FrequencyResponse
+{
+    public final double startFreq;
+    public final FreqUnits unitsRad;
+    public final double sampRate;
+    public final int numDecades;
+
+    private final double[] theFreqs;      // radians/sample
+    private final double[] theReal;
+    private final double[] theImag;
+    private final double[][] theFeatures; // rows from FeatureFinder, or null
+    public final double maxReal;
+    public final double minReal;
+    public final double maxImag;
+    public final double minImag;
+
+    // constructor with args, evaluates theFilter with the default
+    // options through the shared cache
+    public FrequencyResponse(Cascade theFilter, double aFreq, FreqUnits theUnits,
+        double aRate, int theDecades)
+    {
+        this(theFilter, aFreq, theUnits, aRate, theDecades, EngineOptions.defaults, ResponseCache.shared);
+    }
+
+    // constructor with args, for the grid size, refinement and
+    // evaluation set by theOptions, reusing results from theCache
+    // if this filter and grid were seen recently, and keeping each
+    // factor's response there; a null cache always evaluates
+    public FrequencyResponse(Cascade theFilter, double aFreq, FreqUnits theUnits,
+        double aRate, int theDecades, EngineOptions theOptions, ResponseCache theCache)
+    {
+        this(theFilter, aFreq, theUnits, aRate, theDecades, theOptions, theCache, true);
+    }
+    
+    // constructor with all args, skipping peaks, notches and half
+    // power points unless findFeatures, so theFeatures may be null;
+    // they cost more than the response itself for long filters
+    public FrequencyResponse(Cascade theFilter, double aFreq, FreqUnits theUnits, double aRate,
+        int theDecades, EngineOptions theOptions, ResponseCache theCache, boolean findFeatures)
+    {
+        // copy input parameters
+        startFreq = aFreq;
+        unitsRad = theUnits;
+        sampRate = aRate;
+        numDecades = theDecades;
+
+        // initialize list of frequencies
+        final int refinePoints = theOptions.refinePoints();
+        double[] aGrid = FreqGrid.logGrid(startFreq, unitsRad, sampRate, numDecades, theOptions.gridPoints());
+        double[] aReal = new double[aGrid.length];
+        double[] anImag = new double[aGrid.length];
+
+        // identifies the grid, for the cache, and whether the FFT
+        // may be used, which changes results in the last few digits
+        final double[] gridParams = {startFreq, unitsRad.ordinal(), sampRate, numDecades, aGrid.length,
+            refinePoints, theOptions.isFastFourier() ? 1 : 0};
+        CacheKey theKey = new CacheKey("response", theFilter, gridParams);
+        double[][] theCached = (null == theCache) ? null : (double[][]) theCache.get(theKey);
+        if (null == theCached)
+        {
+            // evaluate all frequencies without allocating objects,
+            // and check for extreme values at each frequency
+            double[] extremes = ResponseKernel.computeCascade(theFilter, aGrid,
+                (null == theCache) ? null : gridParams, aReal, anImag, theOptions);
+
+            // add points where the response changes fastest
+            if (refinePoints > 0)
+            {
+                double[][] theRefined = AdaptiveGrid.refine(theFilter, aGrid, aReal, anImag, refinePoints,
+                    theOptions);
+                aGrid  = theRefined[0];
+                aReal  = theRefined[1];
+                anImag = theRefined[2];
+                extremes = ResponseKernel.findExtremes(aReal, anImag, 0, aReal.length);
+            }
+            theCached = new double[][] {aReal, anImag, extremes, aGrid};
+            if (null != theCache) {theCache.put(theKey, theCached, 24L * aGrid.length);}
+        }
+        theReal  = theCached[0];
+        theImag  = theCached[1];
+        theFreqs = theCached[3];
+        maxReal = theCached[2][0];
+        minReal = theCached[2][1];
+        maxImag = theCached[2][2];
+        minImag = theCached[2][3];
+
+        // peaks, notches and half power points of this response
+        if (!findFeatures)
+        {
+            theFeatures = null;
+            return;
+        }
+        theKey = new CacheKey("features", theFilter, gridParams);
+        double[][] someFeatures = (null == theCache) ? null : (double[][]) theCache.get(theKey);
+        if (null == someFeatures)
+        {
+            someFeatures = FeatureFinder.find(theFilter, theFreqs, theReal, theImag, theOptions);
+            if (null != theCache) {theCache.put(theKey, someFeatures, 40L * someFeatures.length);}
+        }
+        theFeatures = someFeatures;
+    }
+
+    // number of frequencies in the grid
+    public int size() {return theFreqs.length;}
+    
+    // frequencies in radians/sample, and real and imaginary
+    // parts of the response, copied so the cached arrays
+    // can't be changed
+    public double[] freqs() {return theFreqs.clone();}
+    public double[] reals() {return theReal.clone();}
+    public double[] imags() {return theImag.clone();}
+    
+    // copy of the rows from FeatureFinder, or null if peaks and
+    // notches weren't found
+    public double[][] features()
+    {
+        if (null == theFeatures) {return null;}
+        double[][] theRows = new double[theFeatures.length][];
+        int index;
+        for (index = 0; index < theRows.length; index++) {theRows[index] = theFeatures[index].clone();}
+        return theRows;
+    }
+
+    // stream frequency response to a text table
+    public void writeResult(Writer out) throws IOException
+    {
+        ResultWriter.writeResponse(out, unitsRad, sampRate, theFreqs, theReal, theImag);
+    }
+
+    // stream peaks, notches and half power points to a text table
+    public void writeFeatures(Writer out) throws IOException
+    {
+        ResultWriter.writeFeatures(out, unitsRad, sampRate, theFeatures);
+    }
+}
@@ -0,0 +1,132 @@
+package bodez.core;
+
+import java.util.*;
+
+//==========================================================\\
+// this class holds only static methods, no instance data
+// simulates filters in the time domain
+public class ImpulseKernel
+{
+    // samples filtered at a time
+    static final int blockSize = 4096;
+    
+    // fill impulseOutput and stepFcnOutput with responses to
+    // unit impulse and unit step, with no early stopping
+    public static void cascade(Cascade theFilter, final double[] impulseOutput, final double[] stepFcnOutput)
+    {
+        simulate(theFilter, impulseOutput.length, 0., new ImpulseSink()
+        {
+            public void samples(long start, double[] impulse, double[] step, int count)
+            {
+                System.arraycopy(impulse, 0, impulseOutput, (int) start, count);
+                System.arraycopy(step, 0, stepFcnOutput, (int) start, count);
+            }
+        });
+    }
+    
+    // as below, for the length and decay threshold in theOptions,
+    // set by --impulse and --decay, stopping with
+    // CancellationException soon after they're cancelled
+    public static long simulate(Cascade theFilter, EngineOptions theOptions, ImpulseSink theSink)
+    {
+        return simulate(theFilter, theOptions.impulseLength(), theOptions.decayThreshold(), theOptions, theSink);
+    }
+    
+    // pass a unit impulse through the cascade, up to maxLength
+    // samples, delivering blocks of impulse and step response
+    // to theSink.  Only a fixed number of blocks are in memory.
+    // The step response is the running sum of the impulse
+    // response, so the filter runs just once.  If threshold is
+    // above zero, stops after the last sample whose magnitude
+    // exceeds threshold times the peak, once a whole block and
+    // the filter state have decayed below that level.
+    // Returns the number of samples delivered.
+    public static long simulate(Cascade theFilter, long maxLength, double threshold, ImpulseSink theSink)
+    {
+        return simulate(theFilter, maxLength, threshold, EngineOptions.defaults, theSink);
+    }
+    
+    // as above, checking theOptions for cancellation between
+    // pieces of about ResponseKernel.cancelInterval multiply-adds
+    private static long simulate(Cascade theFilter, long maxLength, double threshold,
+        EngineOptions theOptions, ImpulseSink theSink)
+    {
+        // check for empty arrays and unrealizable sections
+        if (!theFilter.isRealizable()) {return 0;}
+        
+        // one block is held back, so it can be trimmed when
+        // the next block shows that the response has decayed
+        CascadeFilter theCascade = new CascadeFilter(theFilter);
+        final int theStep = Math.max(1, Math.min(blockSize,
+            ResponseKernel.cancelInterval / Math.max(1, theCascade.sampleWork())));
+        double[] thisBlock = new double[blockSize];
+        double[] lastBlock = new double[blockSize];
+        double[] stepBlock = new double[blockSize];
+        int lastCount = 0;
+        long produced = 0;
+        long delivered = 0;
+        double thePeak = 0.;
+        double theSum = 0.;
+        double theError = 0.;
+        while (produced < maxLength)
+        {
+            // filter the next block of the unit impulse, in pieces
+            // short enough to notice cancellation promptly
+            final int theCount = (int) Math.min(blockSize, maxLength - produced);
+            Arrays.fill(thisBlock, 0, theCount, 0.);
+            if (0 == produced) {thisBlock[0] = 1.;}
+            int index;
+            for (index = 0; index < theCount; index += theStep)
+            {
+                theOptions.checkCancelled();
+                theCascade.filter(thisBlock, index, Math.min(theCount, index + theStep));
+            }
+            produced += theCount;
+            double blockMax = 0.;
+            for (index = 0; index < theCount; index++) {blockMax = Math.max(blockMax, Math.abs(thisBlock[index]));}
+            thePeak = Math.max(thePeak, blockMax);
+            
+            // check whether the response has decayed
+            final double theLimit = threshold * thePeak;
+            final boolean decayed = (threshold > 0.) && (blockMax <= theLimit)
+                && (theCascade.stateNorm() <= theLimit);
+            if (decayed)
+            {
+                // drop the insignificant tail of the held block
+                while ((lastCount > 0) && (Math.abs(lastBlock[lastCount - 1]) <= theLimit)) {lastCount--;}
+            }
+            
+            // deliver the held block, step response by compensated sum
+            for (index = 0; index < lastCount; index++)
+            {
+                final double theTerm = lastBlock[index] - theError;
+                final double theNext = theSum + theTerm;
+                theError = (theNext - theSum) - theTerm;
+                theSum = theNext;
+                stepBlock[index] = theSum;
+            }
+            if (lastCount > 0) {theSink.samples(delivered, lastBlock, stepBlock, lastCount);}
+            delivered += lastCount;
+            if (decayed) {return delivered;}
+            
+            // hold this block until the next one is filtered
+            double[] theTemp = lastBlock;
+            lastBlock = thisBlock;
+            thisBlock = theTemp;
+            lastCount = theCount;
+        }
+        
+        // deliver the final block
+        int index;
+        for (index = 0; index < lastCount; index++)
+        {
+            final double theTerm = lastBlock[index] - theError;
+            final double theNext = theSum + theTerm;
+            theError = (theNext - theSum) - theTerm;
+            theSum = theNext;
+            stepBlock[index] = theSum;
+        }
+        if (lastCount > 0) {theSink.samples(delivered, lastBlock, stepBlock, lastCount);}
+        return delivered + lastCount;
+    }
+}
@@ -0,0 +1,97 @@
+package bodez.core;
+
+import java.util.*;
+
+//==========================================================\\
+// impulse and step function responses of one filter, with
+// only the first samples held and an envelope of the rest.
+// Results may be shared through the cache, so fields are
+// private and arrays are returned as copies.
+public class ImpulseResult
+{
+    // most impulse samples held in memory for the results area
+    public static final int maxHeld = 65536;
+    
+    private final double[] impulseOutput;
+    private final double[] stepFcnOutput;
+    private final long impulseLength;
+    private final Envelope impulseEnvelope = new Envelope();
+    private final Envelope stepFcnEnvelope = new Envelope();
+    
+    // simulate theFilter for the length and decay threshold in
+    // theOptions, or reuse a result from theCache if it was seen
+    // recently; a null cache always simulates.  Returns null
+    // if the filter isn't realizable.
+    public static ImpulseResult simulate(Cascade theFilter, EngineOptions theOptions, ResponseCache theCache)
+    {
+        // check for empty arrays and unrealizable sections
+        if (!theFilter.isRealizable()) {return null;}
+        if (null == theCache) {return new ImpulseResult(theFilter, theOptions);}
+        
+        CacheKey theKey = new CacheKey("impulse", theFilter,
+            new double[] {theOptions.impulseLength(), theOptions.decayThreshold()});
+        ImpulseResult theResult = (ImpulseResult) theCache.get(theKey);
+        if (null == theResult)
+        {
+            theResult = new ImpulseResult(theFilter, theOptions);
+            theCache.put(theKey, theResult, theResult.sizeBytes());
+        }
+        return theResult;
+    }
+    
+    // constructor with args, simulates the filter
+    ImpulseResult(Cascade theFilter, EngineOptions theOptions)
+    {
+        final int theHeld = (int) Math.min(theOptions.impulseLength(), maxHeld);
+        final double[] heldImpulse = new double[theHeld];
+        final double[] heldStepFcn = new double[theHeld];
+        
+        // calculate impulse and step function responses
+        impulseLength = ImpulseKernel.simulate(theFilter, theOptions, new ImpulseSink()
+        {
+            public void samples(long start, double[] impulse, double[] step, int count)
+            {
+                int index;
+                for (index = 0; index < count; index++)
+                {
+                    if (start + index < theHeld)
+                    {
+                        heldImpulse[(int) (start + index)] = impulse[index];
+                        heldStepFcn[(int) (start + index)] = step[index];
+                    }
+                    impulseEnvelope.add(impulse[index]);
+                    stepFcnEnvelope.add(step[index]);
+                }
+            }
+        });
+        
+        // response may have stopped early once decayed
+        final int theCount = (int) Math.min(impulseLength, theHeld);
+        impulseOutput = Arrays.copyOf(heldImpulse, theCount);
+        stepFcnOutput = Arrays.copyOf(heldStepFcn, theCount);
+    }
+    
+    // first samples of impulse and step function responses,
+    // copied so the cached result can't be changed
+    public double[] impulseOutput() {return impulseOutput.clone();}
+    public double[] stepFcnOutput() {return stepFcnOutput.clone();}
+    
+    // number of samples simulated, may be more than are held
+    public long impulseLength() {return impulseLength;}
+    
+    // whole responses, for long plots
+    public Envelope impulseEnvelope() {return impulseEnvelope;}
+    public Envelope stepFcnEnvelope() {return stepFcnEnvelope;}
+    
+    // extreme values over the whole responses
+    public double maxImpulse() {return impulseEnvelope.maximum();}
+    public double minImpulse() {return impulseEnvelope.minimum();}
+    public double maxStepFcn() {return stepFcnEnvelope.maximum();}
+    public double minStepFcn() {return stepFcnEnvelope.minimum();}
+    
+    // approximate memory used, for the cache
+    long sizeBytes()
+    {
+        return 16L * impulseOutput.length + 32L * Envelope.maxBuckets;
+    }
+}
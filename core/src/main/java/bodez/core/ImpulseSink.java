@@ -0,0 +1,9 @@
+package bodez.core;
+
+//==========================================================\\
+// receives impulse and step responses a block at a time
+public interface ImpulseSink
+{
+    // count samples starting at sample number start
+    void samples(long start, double[] impulse, double[] step, int count);
+}
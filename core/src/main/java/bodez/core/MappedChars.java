@@ -0,0 +1,36 @@
+package bodez.core;
+
+import java.nio.*;
+
+//==========================================================\\
+// view of single byte (ASCII) text in a buffer as characters
+class MappedChars implements CharSequence
+{
+    private final ByteBuffer theBuffer;
+    private final int theStart;
+    private final int theLength;
+
+    MappedChars(ByteBuffer aBuffer, int aStart, int anEnd)
+    {
+        theBuffer = aBuffer;
+        theStart = aStart;
+        theLength = anEnd - aStart;
+    }
+
+    public int length() {return theLength;}
+
+    public char charAt(int index) {return (char) (theBuffer.get(theStart + index) & 0xff);}
+
+    public CharSequence subSequence(int start, int end)
+    {
+        return new MappedChars(theBuffer, theStart + start, theStart + end);
+    }
+
+    public String toString()
+    {
+        char[] theChars = new char[theLength];
+        int index;
+        for (index = 0; index < theLength; index++) {theChars[index] = charAt(index);}
+        return new String(theChars);
+    }
+}
@@ -0,0 +1,117 @@
+package bodez.core;
+
+//==========================================================\\
+// this class holds only static methods, no instance data
+// evaluates one long polynomial in powers of z^-1 at arbitrary
+// frequencies using a non-uniform FFT with Gaussian gridding
+// (Greengard & Lee, SIAM Review 46, 2004).  Coefficients are
+// deconvolved by the Gaussian's spectrum, transformed on a grid
+// oversampled by ratio R >= 2, then each frequency is obtained
+// by summing 2*spread grid values weighted by the Gaussian.
+// Absolute error is bounded by about exp(-pi*spread*(R-1)/(R-0.5))
+// times the sum of |coefficients|, which for spread = 12 and
+// R = 2 is 1.2e-11.  Cost is O(N log N) for the transform
+// plus O(spread) per frequency, instead of O(N) per frequency.
+class NufftEvaluator
+{
+    // grid points used on each side of every frequency
+    static final int spread = 12;
+    
+    // rough operation count, comparable to Horner's N per point
+    static long estimateWork(int theLength, int numFreqs)
+    {
+        final int size = gridSize(theLength);
+        final int log2 = Integer.numberOfTrailingZeros(size);
+        return 2L * size * log2 + (long) numFreqs * (4 * spread + 40);
+    }
+    
+    // oversampled grid is the next power of two >= 2N
+    static int gridSize(int theLength)
+    {
+        int size = 2;
+        while (size < 2 * theLength) {size <<= 1;}
+        return size;
+    }
+    
+    // evaluate polynomial at all frequencies in theFreqs
+    static void evalPoly(double[] coeff, double[] theFreqs, double[] theReal, double[] theImag)
+    {
+        final int theLength = coeff.length;
+        final int size = gridSize(theLength);
+        final double ratio = (double) size / theLength;
+        final double tau = Math.PI * spread / ((double) theLength * theLength * ratio * (ratio - 0.5));
+        
+        // center the modes about zero to keep the deconvolution small,
+        // sum c[k] z^-k = z^-half * sum c[half+m] exp(j*m*x), x = -omega
+        final int half = theLength / 2;
+        
+        // deconvolve coefficients by the Gaussian's Fourier series
+        double[] gridReal = new double[size];
+        double[] gridImag = new double[size];
+        final double norm = Math.sqrt(Math.PI / tau);
+        int index;
+        for (index = 0; index < theLength; index++)
+        {
+            final int mode = index - half;
+            gridReal[Math.floorMod(mode, size)] = coeff[index] * norm * Math.exp(mode * (double) mode * tau);
+        }
+        
+        // values on the oversampled uniform grid
+        FourierTransform.transform(gridReal, gridImag, 1);
+        
+        // Gaussian weights exp(-(l*h)^2/(4*tau)) for fast gridding
+        final double step = 2. * Math.PI / size;
+        double[] weights = new double[spread + 1];
+        for (index = 0; index <= spread; index++)
+        {
+            final double dist = index * step;
+            weights[index] = Math.exp(-dist * dist / (4. * tau));
+        }
+        
+        // interpolate to each frequency
+        for (index = 0; index < theFreqs.length; index++)
+        {
+            // reduce x = -omega to the interval [0, 2*pi)
+            double x = -theFreqs[index];
+            x -= 2. * Math.PI * Math.floor(x / (2. * Math.PI));
+            final int nearest = (int) Math.floor(x / step);
+            final double offset = x - nearest * step;
+            
+            // weight for grid point nearest+l is
+            // exp(-offset^2/4tau) * exp(offset*h/2tau)^l * weights[|l|]
+            final double first = Math.exp(-offset * offset / (4. * tau));
+            final double ratioUp = Math.exp(offset * step / (2. * tau));
+            final double ratioDown = 1. / ratioUp;
+            double sumReal = 0.;
+            double sumImag = 0.;
+            double power = first;
+            int inner;
+            for (inner = 0; inner <= spread; inner++)
+            {
+                final int grid = (nearest + inner) & (size - 1);
+                final double weight = power * weights[inner];
+                sumReal += weight * gridReal[grid];
+                sumImag += weight * gridImag[grid];
+                power *= ratioUp;
+            }
+            power = first * ratioDown;
+            for (inner = 1; inner < spread; inner++)
+            {
+                final int grid = (nearest - inner) & (size - 1);
+                final double weight = power * weights[inner];
+                sumReal += weight * gridReal[grid];
+                sumImag += weight * gridImag[grid];
+                power *= ratioDown;
+            }
+            sumReal /= size;
+            sumImag /= size;
+            
+            // restore the offset of the centered modes
+            final double shift = half * theFreqs[index];
+            final double cosShift =  Math.cos(shift);
+            final double sinShift = -Math.sin(shift);
+            theReal[index] = sumReal*cosShift - sumImag*sinShift;
+            theImag[index] = sumReal*sinShift + sumImag*cosShift;
+        }
+    }
+}
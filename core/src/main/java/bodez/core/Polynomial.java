@@ -0,0 +1,296 @@
+package bodez.core;
+
+import java.io.*;
+import java.text.*;
+import java.util.*;
+
+//==========================================================\\
+// this class holds only static methods, no instance data
+public class Polynomial
+{
+    // convert list of coefficients from input string
+    // to an array of doubles
+    public static double[] convertPoly(CharSequence theStr)
+    {
+        return CoeffParser.parseCoeffs(theStr);
+    }
+
+    // convert list of polynomials from input string
+    // to an array of doubles
+    public static double[] convertPolyList(CharSequence theStr)
+    {
+        return multiplyAll(convertFactors(theStr));
+    }
+
+    // convert list of polynomials from input string
+    // to an array of factors, without multiplying them
+    public static double[][] convertFactors(CharSequence theStr)
+    {
+        return CoeffParser.parseFactors(theStr);
+    }
+
+    // as convertFactors, but "@file" reads the coefficients
+    // from a file, see CoeffFile for the formats
+    public static double[][] loadFactors(String theStr) throws IOException
+    {
+        final String theSpec = theStr.trim();
+        if (theSpec.startsWith("@")) {return CoeffFile.readFactors(theSpec.substring(1));}
+        return convertFactors(theStr);
+    }
+
+    // multiply list of factors, unity if the list is empty
+    public static double[] multiplyAll(double[][] theFactors)
+    {
+        if (0 == theFactors.length) {return new double[] {1};}
+        return multiplyRange(theFactors, 0, theFactors.length, false);
+    }
+
+    // as multiplyAll, but always term by term: the FFT leaves an
+    // absolute error of about 1e-16 times the product of the
+    // operands' sums of magnitudes, so small coefficients lose
+    // their relative precision and zeros don't stay exactly zero
+    public static double[] multiplyAllDirect(double[][] theFactors)
+    {
+        if (0 == theFactors.length) {return new double[] {1};}
+        return multiplyRange(theFactors, 0, theFactors.length, true);
+    }
+
+    // multiply factors [from...to-1] as a balanced tree, so that
+    // long products are formed from operands of similar length
+    private static double[] multiplyRange(double[][] theFactors, int from, int to, boolean isDirect)
+    {
+        if (1 == to - from) {return theFactors[from];}
+        final int middle = (from + to) >>> 1;
+        final double[] theLeft  = multiplyRange(theFactors, from, middle, isDirect);
+        final double[] theRight = multiplyRange(theFactors, middle, to, isDirect);
+        return isDirect ? multiplyDirect(theLeft, theRight) : multiply(theLeft, theRight);
+    }
+
+    // multiply two polynomials, using the FFT when that is cheaper
+    public static double[] multiply(double[] array1, double[] array2)
+    {
+        final int shorter = Math.min(array1.length, array2.length);
+        if (shorter >= 16)
+        {
+            final int theSize = NufftEvaluator.gridSize((array1.length + array2.length) / 2);
+            final long direct = (long) array1.length * array2.length;
+            final long fourier = 8L * theSize * Integer.numberOfTrailingZeros(theSize);
+            if (fourier < direct) {return multiplyFourier(array1, array2);}
+        }
+        return multiplyDirect(array1, array2);
+    }
+
+    // multiply two polynomials term by term, exactly as rounded
+    public static double[] multiplyDirect(double[] array1, double[] array2)
+    {
+        double[] theReply = new double[Math.max(0, array1.length + array2.length - 1)];
+        int outer;
+        for (outer = 0; outer < array1.length; outer++)
+        {
+            int inner;
+            for (inner = 0; inner < array2.length; inner++)
+            {
+                theReply[outer + inner] += (array1[outer] * array2[inner]);
+            }
+        }
+        return theReply;
+    }
+
+    // multiply two polynomials by FFT convolution, with both
+    // operands packed into one complex transform
+    static double[] multiplyFourier(double[] array1, double[] array2)
+    {
+        final int theLength = array1.length + array2.length - 1;
+        int theSize = 2;
+        while (theSize < theLength) {theSize <<= 1;}
+        double[] theReal = Arrays.copyOf(array1, theSize);
+        double[] theImag = Arrays.copyOf(array2, theSize);
+        FourierTransform.transform(theReal, theImag, -1);
+        
+        // separate the two spectra, A = (Z[k] + conj Z[-k]) / 2
+        // and B = (Z[k] - conj Z[-k]) / 2j, then form A * B
+        double[] prodReal = new double[theSize];
+        double[] prodImag = new double[theSize];
+        int index;
+        for (index = 0; index < theSize; index++)
+        {
+            final int other = (theSize - index) & (theSize - 1);
+            final double aReal = 0.5 * (theReal[index] + theReal[other]);
+            final double aImag = 0.5 * (theImag[index] - theImag[other]);
+            final double bReal = 0.5 * (theImag[index] + theImag[other]);
+            final double bImag = 0.5 * (theReal[other] - theReal[index]);
+            prodReal[index] = aReal*bReal - aImag*bImag;
+            prodImag[index] = aReal*bImag + aImag*bReal;
+        }
+        
+        // inverse transform, product is real
+        FourierTransform.transform(prodReal, prodImag, 1);
+        double[] theReply = new double[theLength];
+        for (index = 0; index < theLength; index++) {theReply[index] = prodReal[index] / theSize;}
+        return theReply;
+    }
+
+    // find complex roots in z of polynomial in powers of z^-1,
+    // using Aberth's method, return {real parts, imaginary parts}
+    // or null if not converged; trailing zeros must be removed
+    static double[][] findRoots(double[] theCoeff)
+    {
+        final int order = theCoeff.length - 1;
+        double[] rootReal = new double[order];
+        double[] rootImag = new double[order];
+        
+        // start on a circle enclosing all roots, off the real axis
+        double radius = 0.;
+        int index;
+        for (index = 1; index <= order; index++)
+        {
+            radius = Math.max(radius, Math.pow(Math.abs(theCoeff[index] / theCoeff[0]), 1. / index));
+        }
+        for (index = 0; index < order; index++)
+        {
+            final double angle = 2. * Math.PI * (index + 0.25) / order;
+            rootReal[index] = radius * Math.cos(angle);
+            rootImag[index] = radius * Math.sin(angle);
+        }
+        
+        // iterate until every correction is negligible
+        int iteration;
+        for (iteration = 0; iteration < 500; iteration++)
+        {
+            boolean done = true;
+            for (index = 0; index < order; index++)
+            {
+                // value and derivative of polynomial by Horner's rule
+                final double zReal = rootReal[index];
+                final double zImag = rootImag[index];
+                double pReal = theCoeff[0];
+                double pImag = 0.;
+                double dReal = 0.;
+                double dImag = 0.;
+                int inner;
+                for (inner = 1; inner <= order; inner++)
+                {
+                    final double dr = dReal*zReal - dImag*zImag + pReal;
+                    dImag = dReal*zImag + dImag*zReal + pImag;
+                    dReal = dr;
+                    final double pr = pReal*zReal - pImag*zImag + theCoeff[inner];
+                    pImag = pReal*zImag + pImag*zReal;
+                    pReal = pr;
+                }
+                if ((0. == pReal) && (0. == pImag)) {continue;}
+                
+                // Newton ratio p/p'
+                final double dMag = dReal*dReal + dImag*dImag;
+                if (0. == dMag) {return null;}
+                final double nReal = (pReal*dReal + pImag*dImag) / dMag;
+                final double nImag = (pImag*dReal - pReal*dImag) / dMag;
+                
+                // sum of 1/(z - other roots)
+                double sReal = 0.;
+                double sImag = 0.;
+                for (inner = 0; inner < order; inner++)
+                {
+                    if (inner == index) {continue;}
+                    final double diffReal = zReal - rootReal[inner];
+                    final double diffImag = zImag - rootImag[inner];
+                    final double diffMag = diffReal*diffReal + diffImag*diffImag;
+                    sReal += diffReal / diffMag;
+                    sImag -= diffImag / diffMag;
+                }
+                
+                // correction w = ratio / (1 - ratio * sum)
+                final double qReal = 1. - (nReal*sReal - nImag*sImag);
+                final double qImag = -(nReal*sImag + nImag*sReal);
+                final double qMag = qReal*qReal + qImag*qImag;
+                final double wReal = (nReal*qReal + nImag*qImag) / qMag;
+                final double wImag = (nImag*qReal - nReal*qImag) / qMag;
+                rootReal[index] -= wReal;
+                rootImag[index] -= wImag;
+                if (Math.hypot(wReal, wImag) > 1.e-14 * Math.hypot(zReal, zImag)) {done = false;}
+            }
+            if (done) {return new double[][] {rootReal, rootImag};}
+        }
+        return null;
+    }
+
+    // split polynomial into second order factors with real
+    // coefficients, or null if roots can't be found accurately
+    static double[][] toBiquads(double[] theCoeff)
+    {
+        // remove trailing zeros, which don't change the roots
+        int theLength = theCoeff.length;
+        while ((theLength > 1) && (0. == theCoeff[theLength - 1])) {theLength--;}
+        if ((theLength <= 3) || (0. == theCoeff[0])) {return null;}
+        double[][] theRoots = findRoots(Arrays.copyOf(theCoeff, theLength));
+        if (null == theRoots) {return null;}
+        
+        // complex roots in the upper half plane give one biquad
+        // with their conjugates, real roots are paired in order
+        ArrayList<double[]> theList = new ArrayList<double[]>();
+        double[] realRoots = new double[theLength - 1];
+        int numReal = 0;
+        int index;
+        for (index = 0; index < theLength - 1; index++)
+        {
+            final double rootReal = theRoots[0][index];
+            final double rootImag = theRoots[1][index];
+            if (Math.abs(rootImag) <= 1.e-9 * Math.hypot(rootReal, rootImag))
+                {realRoots[numReal++] = rootReal;}
+            else if (rootImag > 0.)
+            {
+                theList.add(new double[] {1., -2. * rootReal,
+                    rootReal * rootReal + rootImag * rootImag});
+            }
+        }
+        Arrays.sort(realRoots, 0, numReal);
+        for (index = 0; index + 1 < numReal; index += 2)
+        {
+            theList.add(new double[] {1., -(realRoots[index] + realRoots[index + 1]),
+                realRoots[index] * realRoots[index + 1]});
+        }
+        if (1 == numReal % 2) {theList.add(new double[] {1., -realRoots[numReal - 1]});}
+        
+        // leading coefficient is the gain of the first section
+        double[][] theReply = theList.toArray(new double[theList.size()][]);
+        for (index = 0; index < theReply[0].length; index++) {theReply[0][index] *= theCoeff[0];}
+        
+        // check that the biquads multiply back to the original,
+        // allowing for rounding in proportion to the product of
+        // absolute values, which grows large for many poles
+        // near the unit circle
+        double[] theCheck = multiplyAll(theReply);
+        if (theCheck.length != theLength) {return null;}
+        double[][] absReply = new double[theReply.length][];
+        for (index = 0; index < theReply.length; index++)
+        {
+            absReply[index] = new double[theReply[index].length];
+            int inner;
+            for (inner = 0; inner < theReply[index].length; inner++)
+                {absReply[index][inner] = Math.abs(theReply[index][inner]);}
+        }
+        double[] absCheck = multiplyAll(absReply);
+        double theScale = 0.;
+        double theError = 0.;
+        for (index = 0; index < theLength; index++)
+        {
+            theScale += absCheck[index];
+            theError += Math.abs(theCheck[index] - theCoeff[index]);
+        }
+        if (theError > 1.e-10 * theScale) {return null;}
+        return theReply;
+    }
+
+    public static void showArray(double[] theArray)
+    {
+        boolean first = true;
+        final DecimalFormat theFormat = new DecimalFormat("#.######");
+        int index;
+        for (index = 0; index < theArray.length; index++)
+        {
+            if (!first){System.out.print(", ");}
+            System.out.print(theFormat.format(theArray[index]));
+            first = false;
+        }
+        System.out.println();
+    }
+}
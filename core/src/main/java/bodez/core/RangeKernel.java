@@ -0,0 +1,24 @@
+package bodez.core;
+
+//==========================================================\\
+// optional evaluator working on several frequencies at once,
+// such as the SIMD one in the bodez-simd module.  Found with
+// ServiceLoader when its jar is on the class path; if none is
+// found, or it can't be loaded, ResponseKernel uses scalar code.
+// Implementations must give the same results as the scalar
+// loops, bit for bit, and keep no state between calls.
+public interface RangeKernel
+{
+    // evaluate one polynomial by Horner's rule at the complex
+    // frequencies e^-jw given by tableReal, tableImag [from...to-1],
+    // placing results in theReal, theImag.  May stop short of the
+    // end, returns index of first frequency not evaluated, which
+    // the caller finishes with scalar code.
+    int hornerRange(double[] coeff, double[] tableReal, double[] tableImag,
+        int from, int to, double[] theReal, double[] theImag);
+
+    // calculate complex response nums/dens at the same complex
+    // frequencies, returning index of first frequency not evaluated
+    int computeRange(double[] nums, double[] dens, double[] tableReal, double[] tableImag,
+        int from, int to, double[] theReal, double[] theImag);
+}
@@ -0,0 +1,83 @@
+package bodez.core;
+
+import java.util.*;
+
+//==========================================================\\
+// least recently used cache of calculated results, limited
+// by the approximate memory its entries use.  Results held
+// here are shared, and must never be modified.
+public class ResponseCache
+{
+    // cache used by the plot, an eighth of the heap by default
+    public static final ResponseCache shared = new ResponseCache(Runtime.getRuntime().maxMemory() / 8);
+    
+    // value and its size, as held in the map
+    private static class Entry
+    {
+        final Object theValue;
+        final long theBytes;
+        Entry(Object aValue, long someBytes) {theValue = aValue; theBytes = someBytes;}
+    }
+    
+    private final LinkedHashMap<CacheKey, Entry> theMap =
+        new LinkedHashMap<CacheKey, Entry>(16, 0.75f, true);
+    private long maxBytes;
+    private long theBytes = 0;
+    private long numHits = 0;
+    private long numMisses = 0;
+    
+    // constructor with one arg, the memory limit in bytes
+    public ResponseCache(long someBytes)
+    {
+        maxBytes = someBytes;
+    }
+    
+    // change memory limit, zero disables the cache
+    public synchronized void setLimit(long someBytes)
+    {
+        maxBytes = someBytes;
+        trim();
+    }
+    
+    // find a result, or null if not cached
+    synchronized Object get(CacheKey theKey)
+    {
+        Entry theEntry = theMap.get(theKey);
+        if (null == theEntry)
+        {
+            numMisses++;
+            return null;
+        }
+        numHits++;
+        return theEntry.theValue;
+    }
+    
+    // add a result, evicting least recently used entries as needed
+    synchronized void put(CacheKey theKey, Object theValue, long someBytes)
+    {
+        final long theSize = someBytes + theKey.sizeBytes();
+        if (theSize > maxBytes) {return;}
+        Entry oldEntry = theMap.put(theKey, new Entry(theValue, theSize));
+        if (null != oldEntry) {theBytes -= oldEntry.theBytes;}
+        theBytes += theSize;
+        trim();
+    }
+    
+    // evict least recently used entries until under the limit
+    private void trim()
+    {
+        Iterator<Entry> theIter = theMap.values().iterator();
+        while ((theBytes > maxBytes) && theIter.hasNext())
+        {
+            theBytes -= theIter.next().theBytes;
+            theIter.remove();
+        }
+    }
+    
+    // hit and miss statistics, for the console
+    public synchronized String stats()
+    {
+        return "Cache: " + numHits + " hits, " + numMisses + " misses, "
+            + theMap.size() + " entries, " + (theBytes / 1024) + " KB";
+    }
+}
@@ -0,0 +1,408 @@
+package bodez.core;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+//==========================================================\\
+// this class holds only static methods, no instance data
+// evaluates transfer functions using parallel arrays of
+// real and imaginary parts, so that no objects are created
+class ResponseKernel
+{
+    // stay on calling thread below this many multiply-adds
+    static final int parallelThreshold = 1 << 16;
+    
+    // check for cancellation after about this many multiply-adds
+    static final int cancelInterval = 1 << 16;
+    
+    // evaluates several frequencies at once if its jar is on the
+    // class path, null for scalar code only
+    static final RangeKernel loadedKernel = loadKernel();
+    
+    // find the first RangeKernel that can be loaded, if any; the
+    // SIMD kernel needs java --add-modules jdk.incubator.vector
+    private static RangeKernel loadKernel()
+    {
+        try
+        {
+            Iterator<RangeKernel> theKernels = ServiceLoader.load(RangeKernel.class).iterator();
+            if (theKernels.hasNext()) {return theKernels.next();}
+        }
+        catch (ServiceConfigurationError | LinkageError e)
+        {
+            System.err.println("Using scalar evaluation, couldn't load " + e.getMessage());
+            System.err.println("(the SIMD kernel needs java --add-modules jdk.incubator.vector)");
+        }
+        return null;
+    }
+    
+    // calculate complex response at all frequencies in theFreqs,
+    // whose e^-jw are in theTable, return extremes as
+    // {maxReal, minReal, maxImag, minImag}
+    static double[] compute(double[] nums, double[] dens, double[] theFreqs, double[][] theTable,
+        double[] theReal, double[] theImag, EngineOptions theOptions)
+    {
+        // long polynomials are evaluated separately using the FFT
+        if (useFourier(nums.length, theFreqs.length, theOptions)
+            || useFourier(dens.length, theFreqs.length, theOptions))
+        {
+            double[] numReal = new double[theFreqs.length];
+            double[] numImag = new double[theFreqs.length];
+            double[] denReal = new double[theFreqs.length];
+            double[] denImag = new double[theFreqs.length];
+            evalPoly(nums, theFreqs, theTable, numReal, numImag, theOptions);
+            evalPoly(dens, theFreqs, theTable, denReal, denImag, theOptions);
+            divide(numReal, numImag, denReal, denImag, theReal, theImag, theFreqs.length);
+            return findExtremes(theReal, theImag, 0, theFreqs.length);
+        }
+        
+        // small filters aren't worth the overhead of splitting
+        final long theWork = (long) theFreqs.length * (nums.length + dens.length);
+        if (!theOptions.isParallel() || (theWork < parallelThreshold))
+        {
+            computeRange(nums, dens, theTable[0], theTable[1], 0, theFreqs.length, theReal, theImag, theOptions);
+            return findExtremes(theReal, theImag, 0, theFreqs.length);
+        }
+        return ForkJoinPool.commonPool().invoke(new ResponseTask(nums, dens, theTable[0], theTable[1],
+            0, theFreqs.length, theReal, theImag, theOptions));
+    }
+    
+    // complex frequencies e^-jw in the Z-domain at all frequencies
+    // in theFreqs, as {real, imag}.  If gridParams identifies the
+    // frequency list, the table is kept in the shared cache and
+    // reused for every filter plotted on that grid, so cos() and
+    // sin() are called once per grid point, not once per factor
+    // on every plot.
+    static double[][] twiddles(final double[] theFreqs, double[] gridParams, EngineOptions theOptions)
+    {
+        final boolean isParallel = theOptions.isParallel();
+        if (null == gridParams) {return buildTwiddles(theFreqs, isParallel);}
+        
+        // the grid before any refinement, whatever is added later
+        final CacheKey theKey = new CacheKey("twiddle", new double[0], Arrays.copyOf(gridParams, 5));
+        double[][] theTable = (double[][]) ResponseCache.shared.get(theKey);
+        if (null != theTable) {return theTable;}
+        
+        // the first caller builds the table, without holding any
+        // lock; others on the same grid wait for it, other grids
+        // go ahead with their own
+        final CompletableFuture<double[][]> theFuture = new CompletableFuture<double[][]>();
+        final CompletableFuture<double[][]> theBuilder = twiddlesBuilding.putIfAbsent(theKey, theFuture);
+        if (null == theBuilder)
+        {
+            try
+            {
+                theTable = buildTwiddles(theFreqs, isParallel);
+                ResponseCache.shared.put(theKey, theTable, 16L * theFreqs.length);
+                theFuture.complete(theTable);
+                return theTable;
+            }
+            catch (RuntimeException | Error e)
+            {
+                theFuture.completeExceptionally(e);
+                throw e;
+            }
+            finally {twiddlesBuilding.remove(theKey);}
+        }
+        try {return theBuilder.get();}
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        }
+        
+        // the builder failed, so try again here
+        catch (ExecutionException e) {return buildTwiddles(theFreqs, isParallel);}
+    }
+    
+    // tables being built for the cache, by grid
+    private static final ConcurrentHashMap<CacheKey, CompletableFuture<double[][]>> twiddlesBuilding =
+        new ConcurrentHashMap<CacheKey, CompletableFuture<double[][]>>();
+    
+    // e^-jw at all frequencies in theFreqs, as {real, imag},
+    // on all cores if isParallel and the grid is long enough
+    private static double[][] buildTwiddles(final double[] theFreqs, boolean isParallel)
+    {
+        final double[] zReal = new double[theFreqs.length];
+        final double[] zImag = new double[theFreqs.length];
+        IntStream theRange = IntStream.range(0, theFreqs.length);
+        if (isParallel && (16L * theFreqs.length >= parallelThreshold)) {theRange = theRange.parallel();}
+        theRange.forEach(new IntConsumer()
+        {
+            public void accept(int index)
+            {
+                zReal[index] =  Math.cos(theFreqs[index]);
+                zImag[index] = -Math.sin(theFreqs[index]);
+            }
+        });
+        return new double[][] {zReal, zImag};
+    }
+    
+    // calculate complex response of a cascade of sections at all
+    // frequencies in theFreqs, return extremes as
+    // {maxReal, minReal, maxImag, minImag}.  If gridParams
+    // identifies the frequency list, each numerator and
+    // denominator factor is evaluated through the shared cache,
+    // so only factors that changed since the last plot are
+    // evaluated again.  Each section's numerator is multiplied
+    // in and its denominator divided out in turn, so long
+    // cascades of high gain or deep stopband sections don't
+    // overflow or underflow where the whole response wouldn't.
+    static double[] computeCascade(Cascade theFilter, double[] theFreqs, double[] gridParams,
+        double[] theReal, double[] theImag, EngineOptions theOptions)
+    {
+        final double[][] theTable = twiddles(theFreqs, gridParams, theOptions);
+        if ((null == gridParams) && (1 == theFilter.size()))
+        {
+            return compute(theFilter.sharedNumSections()[0], theFilter.sharedDenSections()[0],
+                theFreqs, theTable, theReal, theImag, theOptions);
+        }
+        Arrays.fill(theReal, 0, theFreqs.length, 1.);
+        Arrays.fill(theImag, 0, theFreqs.length, 0.);
+        int index;
+        for (index = 0; index < theFilter.size(); index++)
+        {
+            multiplyFactor(theFilter.sharedNumSections()[index], theFreqs, theTable, gridParams,
+                theReal, theImag, false, theOptions);
+            multiplyFactor(theFilter.sharedDenSections()[index], theFreqs, theTable, gridParams,
+                theReal, theImag, true, theOptions);
+        }
+        return findExtremes(theReal, theImag, 0, theFreqs.length);
+    }
+    
+    // multiply theReal, theImag by the response of one factor,
+    // or divide them by it if isDivide, evaluated or found in
+    // the cache
+    private static void multiplyFactor(double[] coeff, double[] theFreqs, double[][] theTable,
+        double[] gridParams, double[] theReal, double[] theImag, boolean isDivide, EngineOptions theOptions)
+    {
+        // constant factors are just a gain
+        final int theCount = theFreqs.length;
+        int index;
+        if (1 == coeff.length)
+        {
+            for (index = 0; index < theCount; index++)
+            {
+                theReal[index] = isDivide ? theReal[index] / coeff[0] : theReal[index] * coeff[0];
+                theImag[index] = isDivide ? theImag[index] / coeff[0] : theImag[index] * coeff[0];
+            }
+            return;
+        }
+        
+        // evaluate factor unless it is already cached for this grid
+        double[][] theFactor = null;
+        CacheKey theKey = null;
+        if (null != gridParams)
+        {
+            theKey = new CacheKey("factor", coeff, gridParams);
+            theFactor = (double[][]) ResponseCache.shared.get(theKey);
+        }
+        if (null == theFactor)
+        {
+            theFactor = new double[][] {new double[theFreqs.length], new double[theFreqs.length]};
+            evalPoly(coeff, theFreqs, theTable, theFactor[0], theFactor[1], theOptions);
+            if (null != theKey) {ResponseCache.shared.put(theKey, theFactor, 16L * theFreqs.length);}
+        }
+        
+        // complex multiply or divide point by point
+        final double[] factReal = theFactor[0];
+        final double[] factImag = theFactor[1];
+        if (isDivide)
+        {
+            divide(theReal, theImag, factReal, factImag, theReal, theImag, theCount);
+            return;
+        }
+        for (index = 0; index < theCount; index++)
+        {
+            final double x_new = theReal[index]*factReal[index] - theImag[index]*factImag[index];
+            theImag[index] = theReal[index]*factImag[index] + theImag[index]*factReal[index];
+            theReal[index] = x_new;
+        }
+    }
+    
+    // decide whether the FFT is cheaper than Horner's rule
+    // for a polynomial of this length at this many frequencies
+    static boolean useFourier(int theLength, int numFreqs, EngineOptions theOptions)
+    {
+        if (!theOptions.isFastFourier() || (theLength < 256)) {return false;}
+        final long direct = (long) theLength * numFreqs;
+        final long fourier = NufftEvaluator.estimateWork(theLength, numFreqs);
+        return fourier < direct;
+    }
+    
+    // evaluate one polynomial at all frequencies in theFreqs,
+    // whose e^-jw are in theTable
+    static void evalPoly(double[] coeff, double[] theFreqs, double[][] theTable,
+        double[] theReal, double[] theImag, EngineOptions theOptions)
+    {
+        theOptions.checkCancelled();
+        final long theWork = (long) theFreqs.length * coeff.length;
+        if (useFourier(coeff.length, theFreqs.length, theOptions))
+            {NufftEvaluator.evalPoly(coeff, theFreqs, theReal, theImag);}
+        else if (theOptions.isParallel() && (theWork >= parallelThreshold))
+        {
+            ForkJoinPool.commonPool().invoke(new ResponseTask(coeff, null, theTable[0], theTable[1],
+                0, theFreqs.length, theReal, theImag, theOptions));
+        }
+        else {hornerRange(coeff, theTable[0], theTable[1], 0, theFreqs.length, theReal, theImag, theOptions);}
+    }
+    
+    // evaluate one polynomial by Horner's rule at the complex
+    // frequencies tableReal, tableImag [from...to-1], placing
+    // results in theReal, theImag, a piece at a time so that
+    // cancellation is noticed within cancelInterval steps
+    static void hornerRange(double[] coeff, double[] tableReal, double[] tableImag,
+        int from, int to, double[] theReal, double[] theImag, EngineOptions theOptions)
+    {
+        final RangeKernel theKernel = theOptions.rangeKernel();
+        final int theStep = checkStep(coeff.length);
+        int start = from;
+        while (start < to)
+        {
+            theOptions.checkCancelled();
+            final int end = (int) Math.min(to, (long) start + theStep);
+            int first = start;
+            if (null != theKernel)
+                {first = theKernel.hornerRange(coeff, tableReal, tableImag, start, end, theReal, theImag);}
+            hornerScalar(coeff, tableReal, tableImag, first, end, theReal, theImag);
+            start = end;
+        }
+    }
+    
+    // frequencies evaluated between checks for cancellation, for
+    // polynomials of theLength coefficients, in whole pairs of
+    // SIMD vectors so the kernel leaves none to scalar code
+    private static int checkStep(int theLength)
+    {
+        return Math.max(16, (cancelInterval / Math.max(1, theLength)) & ~15);
+    }
+    
+    // Horner's rule as above, one frequency at a time
+    private static void hornerScalar(double[] coeff, double[] tableReal, double[] tableImag,
+        int from, int to, double[] theReal, double[] theImag)
+    {
+        int outer;
+        for (outer = from; outer < to; outer++)
+        {
+            final double zReal = tableReal[outer];
+            final double zImag = tableImag[outer];
+            double sumReal = 0.;
+            double sumImag = 0.;
+            int inner;
+            for (inner = coeff.length - 1; inner >= 0; inner--)
+            {
+                final double x_new = sumReal*zReal - sumImag*zImag + coeff[inner];
+                sumImag = sumReal*zImag + sumImag*zReal;
+                sumReal = x_new;
+            }
+            theReal[outer] = sumReal;
+            theImag[outer] = sumImag;
+        }
+    }
+    
+    // divide numerator by denominator point by point at the
+    // first theCount frequencies; the result may be either one
+    static void divide(double[] numReal, double[] numImag, double[] denReal, double[] denImag,
+        double[] theReal, double[] theImag, int theCount)
+    {
+        int index;
+        for (index = 0; index < theCount; index++)
+        {
+            final double den = denReal[index]*denReal[index] + denImag[index]*denImag[index];
+            final double x_new = (numReal[index]*denReal[index] + numImag[index]*denImag[index])/den;
+            theImag[index] = (denReal[index]*numImag[index] - denImag[index]*numReal[index])/den;
+            theReal[index] = x_new;
+        }
+    }
+    
+    // find extremes of results in [from...to-1],
+    // return as {maxReal, minReal, maxImag, minImag}
+    static double[] findExtremes(double[] theReal, double[] theImag, int from, int to)
+    {
+        double[] extremes = {-1.e10, 1.e10, -1.e10, 1.e10};
+        int index;
+        for (index = from; index < to; index++)
+        {
+            extremes[0] = Math.max(extremes[0], theReal[index]);
+            extremes[1] = Math.min(extremes[1], theReal[index]);
+            extremes[2] = Math.max(extremes[2], theImag[index]);
+            extremes[3] = Math.min(extremes[3], theImag[index]);
+        }
+        return extremes;
+    }
+    
+    // combine extremes from two halves of the frequency list
+    static double[] mergeExtremes(double[] left, double[] right)
+    {
+        if (null == left) {return null;}
+        left[0] = Math.max(left[0], right[0]);
+        left[1] = Math.min(left[1], right[1]);
+        left[2] = Math.max(left[2], right[2]);
+        left[3] = Math.min(left[3], right[3]);
+        return left;
+    }
+    
+    // calculate complex response nums/dens at the complex
+    // frequencies tableReal, tableImag [from...to-1], placing
+    // results in theReal, theImag, a piece at a time as above
+    static void computeRange(double[] nums, double[] dens, double[] tableReal, double[] tableImag,
+        int from, int to, double[] theReal, double[] theImag, EngineOptions theOptions)
+    {
+        final RangeKernel theKernel = theOptions.rangeKernel();
+        final int theStep = checkStep(nums.length + dens.length);
+        int start = from;
+        while (start < to)
+        {
+            theOptions.checkCancelled();
+            final int end = (int) Math.min(to, (long) start + theStep);
+            int first = start;
+            if (null != theKernel)
+                {first = theKernel.computeRange(nums, dens, tableReal, tableImag, start, end, theReal, theImag);}
+            computeScalar(nums, dens, tableReal, tableImag, first, end, theReal, theImag);
+            start = end;
+        }
+    }
+    
+    // response nums/dens as above, one frequency at a time
+    private static void computeScalar(double[] nums, double[] dens, double[] tableReal, double[] tableImag,
+        int from, int to, double[] theReal, double[] theImag)
+    {
+        int outer;
+        for (outer = from; outer < to; outer++)
+        {
+            // complex representation of frequency in Z-domain
+            final double zReal = tableReal[outer];
+            final double zImag = tableImag[outer];
+            
+            // calculate complex numerator by Horner's rule,
+            // starting from the highest order coefficient
+            double numReal = 0.;
+            double numImag = 0.;
+            int inner;
+            for (inner = nums.length - 1; inner >= 0; inner--)
+            {
+                final double x_new = numReal*zReal - numImag*zImag + nums[inner];
+                numImag = numReal*zImag + numImag*zReal;
+                numReal = x_new;
+            }
+            
+            // calculate complex denominator the same way
+            double denReal = 0.;
+            double denImag = 0.;
+            for (inner = dens.length - 1; inner >= 0; inner--)
+            {
+                final double x_new = denReal*zReal - denImag*zImag + dens[inner];
+                denImag = denReal*zImag + denImag*zReal;
+                denReal = x_new;
+            }
+            
+            // divide numerator by denominator, multiplying both by the
+            // conjugate of the denominator
+            final double den = denReal*denReal + denImag*denImag;
+            theReal[outer] = (numReal*denReal + numImag*denImag)/den;
+            theImag[outer] = (denReal*numImag - denImag*numReal)/den;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package bodez.core;
+
+import java.util.concurrent.*;
+
+//==========================================================\\
+// fork/join task to evaluate part of the frequency list,
+// splits in halves until each piece is small enough.
+// With no denominator, evaluates just the numerator polynomial
+// and returns null instead of extremes.
+class ResponseTask extends RecursiveTask<double[]>
+{
+    private static final long serialVersionUID = 1L;
+    
+    private final double[] nums;
+    private final double[] dens;
+    private final double[] tableReal;
+    private final double[] tableImag;
+    private final int from;
+    private final int to;
+    private final double[] theReal;
+    private final double[] theImag;
+    private final EngineOptions theOptions;
+    
+    // constructor with args, frequencies as e^-jw in zReal and
+    // zImag, results go to theReal and theImag
+    ResponseTask(double[] numCoeff, double[] denCoeff, double[] zReal, double[] zImag,
+        int aFrom, int aTo, double[] aReal, double[] anImag, EngineOptions someOptions)
+    {
+        nums = numCoeff;
+        dens = denCoeff;
+        tableReal = zReal;
+        tableImag = zImag;
+        from = aFrom;
+        to = aTo;
+        theReal = aReal;
+        theImag = anImag;
+        theOptions = someOptions;
+    }
+    
+    // evaluate this piece or split it, return merged extremes;
+    // stops with CancellationException once cancelled
+    protected double[] compute()
+    {
+        theOptions.checkCancelled();
+        final int denLength = (null == dens) ? 0 : dens.length;
+        final long theWork = (long) (to - from) * (nums.length + denLength);
+        if ((null == dens) && ((theWork < ResponseKernel.parallelThreshold) || (to - from < 2)))
+        {
+            ResponseKernel.hornerRange(nums, tableReal, tableImag, from, to, theReal, theImag, theOptions);
+            return null;
+        }
+        if ((theWork < ResponseKernel.parallelThreshold) || (to - from < 2))
+        {
+            ResponseKernel.computeRange(nums, dens, tableReal, tableImag, from, to, theReal, theImag, theOptions);
+            return ResponseKernel.findExtremes(theReal, theImag, from, to);
+        }
+        final int middle = (from + to) >>> 1;
+        ResponseTask left  = new ResponseTask(nums, dens, tableReal, tableImag, from, middle,
+            theReal, theImag, theOptions);
+        ResponseTask right = new ResponseTask(nums, dens, tableReal, tableImag, middle, to,
+            theReal, theImag, theOptions);
+        left.fork();
+        double[] rightExtremes = right.compute();
+        return ResponseKernel.mergeExtremes(left.join(), rightExtremes);
+    }
+}
@@ -0,0 +1,140 @@
+package bodez.core;
+
+import java.io.*;
+import java.text.*;
+
+//==========================================================\\
+// writes result tables row by row, same format as results area.
+// Rows are formatted into a reusable character buffer which is
+// passed to the Writer in large blocks, so nothing is allocated
+// per row and the whole table is never held in memory.
+public class ResultWriter
+{
+    private final Writer out;
+    private final SciFormat theFormat = new SciFormat();
+    private final char[] theBuff = new char[8192];
+    private int theLength = 0;
+    
+    // constructor with one arg, the destination
+    public ResultWriter(Writer aWriter)
+    {
+        out = aWriter;
+    }
+    
+    // write frequency and complex response columns
+    public static void writeResponse(Writer aWriter, FreqUnits unitsRad, double sampRate,
+        double[] theFreqs, double[] theReal, double[] theImag) throws IOException
+    {
+        writeResponse(aWriter, unitsRad, sampRate, theFreqs, theReal, theImag, 1);
+    }
+    
+    // write every stride'th row of the response columns
+    public static void writeResponse(Writer aWriter, FreqUnits unitsRad, double sampRate,
+        double[] theFreqs, double[] theReal, double[] theImag, int stride) throws IOException
+    {
+        ResultWriter theWriter = new ResultWriter(aWriter);
+        theWriter.append("Freq. (" + FreqGrid.unitsNames[unitsRad.ordinal()] + ")\tComplex Resp.\n");
+        int index;
+        for (index = 0; index < theReal.length; index += stride)
+        {
+            // first column in frequency in chosen units,
+            // second column is complex response compatible with MS Excel
+            theWriter.number(FreqGrid.fromRadians(theFreqs[index], unitsRad, sampRate), false);
+            theWriter.append('\t');
+            theWriter.number(theReal[index], true);
+            theWriter.number(theImag[index], true);
+            theWriter.append('i');
+            theWriter.append('\n');
+        }
+        theWriter.flush();
+    }
+    
+    // write table of peaks, notches and half power points,
+    // rows from FeatureFinder.find
+    public static void writeFeatures(Writer aWriter, FreqUnits unitsRad, double sampRate,
+        double[][] theFeatures) throws IOException
+    {
+        // more digits than the response table, since these are exact
+        final DecimalFormat freqFormat = new DecimalFormat("#.#########E0");
+        ResultWriter theWriter = new ResultWriter(aWriter);
+        theWriter.append("Feature\tFreq. (" + FreqGrid.unitsNames[unitsRad.ordinal()] + ")\tGain (dB)\n");
+        int index;
+        for (index = 0; index < theFeatures.length; index++)
+        {
+            theWriter.append(FeatureFinder.kindNames[(int) theFeatures[index][0]]);
+            theWriter.append('\t');
+            theWriter.append(freqFormat.format(FreqGrid.fromRadians(theFeatures[index][1], unitsRad, sampRate)));
+            theWriter.append('\t');
+            if (Double.isInfinite(theFeatures[index][2])) {theWriter.append("-Infinity");}
+            else {theWriter.number(theFeatures[index][2], true);}
+            theWriter.append('\n');
+        }
+        theWriter.flush();
+    }
+    
+    // write time, impulse response and step function columns
+    public static void writeImpulse(Writer aWriter, double sampRate,
+        double[] impulseOutput, double[] stepFcnOutput) throws IOException
+    {
+        ResultWriter theWriter = new ResultWriter(aWriter);
+        theWriter.impulseHeading();
+        int index;
+        for (index = 0; index < impulseOutput.length; index++)
+        {
+            theWriter.impulseRow(index / sampRate, impulseOutput[index], stepFcnOutput[index]);
+        }
+        theWriter.flush();
+    }
+    
+    // write heading for impulse table
+    public void impulseHeading() throws IOException
+    {
+        append("Time (sec)\tImpulse Response\tStep Function\n");
+    }
+    
+    // write one row of impulse table
+    public void impulseRow(double theTime, double anImpulse, double aStep) throws IOException
+    {
+        number(theTime, false);
+        append('\t');
+        number(anImpulse, false);
+        append('\t');
+        number(aStep, false);
+        append('\n');
+    }
+    
+    // make room for at least theCount more characters
+    private void reserve(int theCount) throws IOException
+    {
+        if (theLength + theCount > theBuff.length) {flush();}
+    }
+    
+    // append one character
+    void append(char theChar) throws IOException
+    {
+        reserve(1);
+        theBuff[theLength++] = theChar;
+    }
+    
+    // append a string, used only for headings
+    void append(String theStr) throws IOException
+    {
+        flush();
+        out.write(theStr);
+    }
+    
+    // append a number in scientific notation, 6 sig. figs.,
+    // with a leading '+' on positive values if signed is true
+    void number(double aValue, boolean signed) throws IOException
+    {
+        reserve(SciFormat.maxChars);
+        theLength = theFormat.format(aValue, signed, theBuff, theLength);
+    }
+    
+    // pass buffered characters to the Writer
+    public void flush() throws IOException
+    {
+        out.write(theBuff, 0, theLength);
+        theLength = 0;
+    }
+}
@@ -0,0 +1,145 @@
+package bodez.core;
+
+import java.text.*;
+
+//==========================================================\\
+// formats doubles into a character array, producing exactly
+// the same text as DecimalFormat("#.######E0") in the default
+// locale, or "+#.######E0;-#" when signed.  Values are scaled
+// and rounded to seven digits in double arithmetic; the rare
+// values too close to a rounding tie to decide that way, and
+// values outside the normal range, go to DecimalFormat instead.
+class SciFormat
+{
+    // longest text for one number, with room for long NaN/infinity
+    static final int maxChars = 48;
+    
+    // exact powers of ten
+    private static final double[] powers = new double[23];
+    static
+    {
+        powers[0] = 1.;
+        int index;
+        for (index = 1; index < powers.length; index++) {powers[index] = 10. * powers[index-1];}
+    }
+    
+    // locale symbols, and fallback formats for hard cases
+    private final char decimalSep;
+    private final char minusSign;
+    private final String expSep;
+    private final DecimalFormat plainFormat  = new DecimalFormat("#.######E0");
+    private final DecimalFormat signedFormat = new DecimalFormat("+#.######E0;-#");
+    
+    // default constructor, uses symbols for default locale
+    SciFormat()
+    {
+        DecimalFormatSymbols theSymbols = plainFormat.getDecimalFormatSymbols();
+        decimalSep = theSymbols.getDecimalSeparator();
+        minusSign  = theSymbols.getMinusSign();
+        expSep     = theSymbols.getExponentSeparator();
+    }
+    
+    // return 10^exponent
+    private static double pow10(int exponent)
+    {
+        if ((exponent >= 0) && (exponent < powers.length)) {return powers[exponent];}
+        return Math.pow(10., exponent);
+    }
+    
+    // format aValue into theBuff at pos, return new position
+    int format(double aValue, boolean signed, char[] theBuff, int pos)
+    {
+        // sign, including negative zero as DecimalFormat does
+        final boolean negative = (aValue < 0.) || ((0. == aValue) && (1. / aValue < 0.));
+        double theMag = Math.abs(aValue);
+        if (0. == theMag)
+        {
+            if (negative) {theBuff[pos++] = minusSign;}
+            else if (signed) {theBuff[pos++] = '+';}
+            theBuff[pos++] = '0';
+            return copy(expSep, theBuff, pos, "0");
+        }
+        if (Double.isNaN(theMag) || Double.isInfinite(theMag) || (theMag < 1.e-290) || (theMag > 1.e290))
+            {return slowFormat(aValue, signed, theBuff, pos);}
+        
+        // scale magnitude to seven digits before the decimal point
+        int exponent = (int) Math.floor(Math.log10(theMag));
+        double scaled = (exponent <= 6) ? theMag * pow10(6 - exponent) : theMag / pow10(exponent - 6);
+        if (scaled >= 1.e7)
+        {
+            exponent++;
+            scaled = (exponent <= 6) ? theMag * pow10(6 - exponent) : theMag / pow10(exponent - 6);
+        }
+        else if (scaled < 1.e6)
+        {
+            exponent--;
+            scaled = (exponent <= 6) ? theMag * pow10(6 - exponent) : theMag / pow10(exponent - 6);
+        }
+        
+        // round half even, unless too close to a tie to be sure
+        double whole = Math.floor(scaled);
+        final double fraction = scaled - whole;
+        if (Math.abs(fraction - 0.5) < 1.e-6) {return slowFormat(aValue, signed, theBuff, pos);}
+        long digits = (long) whole;
+        if (fraction > 0.5) {digits++;}
+        if (digits >= 10000000L)
+        {
+            digits /= 10;
+            exponent++;
+        }
+        
+        // drop trailing zeros from the fraction
+        int numDigits = 7;
+        while ((numDigits > 1) && (0 == digits % 10))
+        {
+            digits /= 10;
+            numDigits--;
+        }
+        
+        // emit sign, mantissa, exponent
+        if (negative) {theBuff[pos++] = minusSign;}
+        else if (signed) {theBuff[pos++] = '+';}
+        final int start = pos;
+        if (numDigits > 1) {pos++;}
+        int index;
+        for (index = numDigits - 1; index >= 0; index--)
+        {
+            theBuff[start + index + ((index > 0) ? 1 : 0)] = (char) ('0' + digits % 10);
+            digits /= 10;
+        }
+        if (numDigits > 1) {theBuff[start + 1] = decimalSep;}
+        pos = start + numDigits + ((numDigits > 1) ? 1 : 0);
+        pos = copy(expSep, theBuff, pos, null);
+        if (exponent < 0)
+        {
+            theBuff[pos++] = minusSign;
+            exponent = -exponent;
+        }
+        if (exponent >= 100) {theBuff[pos++] = (char) ('0' + exponent / 100);}
+        if (exponent >= 10)  {theBuff[pos++] = (char) ('0' + (exponent / 10) % 10);}
+        theBuff[pos++] = (char) ('0' + exponent % 10);
+        return pos;
+    }
+    
+    // copy first and optional second string into theBuff at pos
+    private static int copy(String first, char[] theBuff, int pos, String second)
+    {
+        first.getChars(0, first.length(), theBuff, pos);
+        pos += first.length();
+        if (null != second)
+        {
+            second.getChars(0, second.length(), theBuff, pos);
+            pos += second.length();
+        }
+        return pos;
+    }
+    
+    // format using DecimalFormat, for the rare hard cases
+    private int slowFormat(double aValue, boolean signed, char[] theBuff, int pos)
+    {
+        String theStr = signed ? signedFormat.format(aValue) : plainFormat.format(aValue);
+        final int theCount = Math.min(theStr.length(), maxChars);
+        theStr.getChars(0, theCount, theBuff, pos);
+        return pos + theCount;
+    }
+}
@@ -0,0 +1,37 @@
+package bodez.core;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+//==========================================================\\
+// checks the response of long cascades whose numerator or
+// denominator alone is outside the range of a double
+public class CascadeTest
+{
+    // 80 sections, each scaled by 1e5 above and below, with
+    // about 14 dB of gain at DC, compared with the gain summed
+    // over sections in the log domain
+    @Test
+    public void longCascadeStaysFinite()
+    {
+        final int numSections = 80;
+        double[][] theNums = new double[numSections][];
+        double[][] theDens = new double[numSections][];
+        int index;
+        for (index = 0; index < numSections; index++)
+        {
+            theNums[index] = new double[] {1e5, 2e5, 1e5};
+            theDens[index] = new double[] {1e5, -0.5e5, 0.25e5};
+        }
+        final Cascade theFilter = new Cascade(theNums, theDens);
+        final double[] theFreqs = {0.01, 0.5, 1., 3.};
+        double[] theReal = new double[theFreqs.length];
+        double[] theImag = new double[theFreqs.length];
+        theFilter.evaluate(theFreqs, theReal, theImag, EngineOptions.defaults.apply("--direct"));
+        for (index = 0; index < theFreqs.length; index++)
+        {
+            final double theDB = 20. * Math.log10(Math.hypot(theReal[index], theImag[index]));
+            assertEquals(FeatureFinder.evaluate(theFilter, theFreqs[index])[0], theDB, 1.e-9 * Math.abs(theDB));
+        }
+    }
+}
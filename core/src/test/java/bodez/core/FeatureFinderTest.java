@@ -0,0 +1,78 @@
+package bodez.core;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+//==========================================================\\
+// checks the half power points found for first and second
+// order sections against their closed form cutoff frequencies
+public class FeatureFinderTest
+{
+    // half power level with unity passband gain, in dB
+    private static final double halfPowerDB = 10. * Math.log10(0.5);
+
+    // one-pole low-pass (1-a)/(1 - a/z), unity gain at DC, on a
+    // grid starting well above DC where the gain has already
+    // fallen, so the grid's highest gain isn't the passband gain
+    @Test
+    public void onePoleLowPass()
+    {
+        final double a = 0.9;
+        final Cascade theFilter = new Cascade(new double[][] {{1 - a}}, new double[][] {{1, -a}});
+        final double theCutoff = Math.acos((4 * a - 1 - a * a) / (2 * a));
+        checkCutoff(theFilter, 0.05, theCutoff);
+    }
+
+    // one-pole high-pass (1+a)/2 (1 - 1/z)/(1 - a/z), unity gain
+    // at Nyquist, which the grid never reaches
+    @Test
+    public void onePoleHighPass()
+    {
+        final double a = 0.5;
+        final double b = 0.5 * (1 + a);
+        final Cascade theFilter = new Cascade(new double[][] {{b, -b}}, new double[][] {{1, -a}});
+        final double theCutoff = Math.acos(2 * a / (1 + a * a));
+        checkCutoff(theFilter, 0.01, theCutoff);
+    }
+
+    // second order Butterworth low-pass by the bilinear transform,
+    // which puts the half power point exactly at the design cutoff
+    @Test
+    public void butterworthLowPass()
+    {
+        final double theCutoff = 0.2;
+        final double k = Math.tan(0.5 * theCutoff);
+        final double theNorm = 1 / (1 + Math.sqrt(2) * k + k * k);
+        final double b0 = k * k * theNorm;
+        final double[] theNum = {b0, 2 * b0, b0};
+        final double[] theDen = {1, 2 * (k * k - 1) * theNorm, (1 - Math.sqrt(2) * k + k * k) * theNorm};
+        checkCutoff(new Cascade(new double[][] {theNum}, new double[][] {theDen}), 0.01, theCutoff);
+    }
+
+    // find features on a logarithmic grid from theStart to just
+    // below Nyquist, expect one half power point, at theCutoff
+    private static void checkCutoff(Cascade theFilter, double theStart, double theCutoff)
+    {
+        final int numPoints = 601;
+        final double theEnd = 3.1;
+        double[] theFreqs = new double[numPoints];
+        int index;
+        for (index = 0; index < numPoints; index++)
+            {theFreqs[index] = theStart * Math.pow(theEnd / theStart, index / (numPoints - 1.));}
+        double[] theReal = new double[numPoints];
+        double[] theImag = new double[numPoints];
+        theFilter.evaluate(theFreqs, theReal, theImag);
+
+        final double[][] theRows = FeatureFinder.find(theFilter, theFreqs, theReal, theImag);
+        double[] theHalf = null;
+        for (index = 0; index < theRows.length; index++)
+        {
+            if (FeatureFinder.halfPower != (int) theRows[index][0]) {continue;}
+            assertNull("more than one half power point", theHalf);
+            theHalf = theRows[index];
+        }
+        assertNotNull("no half power point", theHalf);
+        assertEquals(theCutoff, theHalf[1], 1.e-10 * theCutoff);
+        assertEquals(halfPowerDB, theHalf[2], 1.e-9);
+    }
+}
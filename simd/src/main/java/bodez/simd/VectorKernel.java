@@ -0,0 +1,152 @@
+package bodez.simd;
+
+import bodez.core.*;
+import jdk.incubator.vector.*;
+
+//==========================================================\\
+// evaluates polynomials at as many frequencies at once as the
+// processor's widest vectors hold: 4 with AVX2, 8 with AVX-512.
+// Real and imaginary parts are kept in separate vectors, one
+// frequency per lane, and two vectors are worked on together to
+// hide the latency of each Horner step.  The arithmetic is done
+// in the same order as ResponseKernel's scalar loops, without
+// fused multiply-adds, so results are identical bit for bit.
+public class VectorKernel implements RangeKernel
+{
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int lanes = SPECIES.length();
+
+    // constructor, refuses to load where vectors don't help
+    public VectorKernel()
+    {
+        if (lanes < 2) {throw new UnsupportedOperationException("no SIMD support");}
+    }
+
+    public String toString() {return "SIMD (" + lanes + " frequencies per vector)";}
+
+    // evaluate whole vectors of frequencies in [from...to-1]
+    public int hornerRange(double[] coeff, double[] tableReal, double[] tableImag,
+        int from, int to, double[] theReal, double[] theImag)
+    {
+        int outer;
+        for (outer = from; outer + 2*lanes <= to; outer += 2*lanes)
+        {
+            // complex frequencies in Z-domain
+            final DoubleVector zReal0 = DoubleVector.fromArray(SPECIES, tableReal, outer);
+            final DoubleVector zImag0 = DoubleVector.fromArray(SPECIES, tableImag, outer);
+            final DoubleVector zReal1 = DoubleVector.fromArray(SPECIES, tableReal, outer + lanes);
+            final DoubleVector zImag1 = DoubleVector.fromArray(SPECIES, tableImag, outer + lanes);
+
+            DoubleVector sumReal0 = DoubleVector.zero(SPECIES);
+            DoubleVector sumImag0 = sumReal0;
+            DoubleVector sumReal1 = sumReal0;
+            DoubleVector sumImag1 = sumReal0;
+            int inner;
+            for (inner = coeff.length - 1; inner >= 0; inner--)
+            {
+                final DoubleVector theCoeff = DoubleVector.broadcast(SPECIES, coeff[inner]);
+                final DoubleVector x_new0 = sumReal0.mul(zReal0).sub(sumImag0.mul(zImag0)).add(theCoeff);
+                final DoubleVector x_new1 = sumReal1.mul(zReal1).sub(sumImag1.mul(zImag1)).add(theCoeff);
+                sumImag0 = sumReal0.mul(zImag0).add(sumImag0.mul(zReal0));
+                sumImag1 = sumReal1.mul(zImag1).add(sumImag1.mul(zReal1));
+                sumReal0 = x_new0;
+                sumReal1 = x_new1;
+            }
+            sumReal0.intoArray(theReal, outer);
+            sumImag0.intoArray(theImag, outer);
+            sumReal1.intoArray(theReal, outer + lanes);
+            sumImag1.intoArray(theImag, outer + lanes);
+        }
+        for (; outer + lanes <= to; outer += lanes)
+        {
+            final DoubleVector zReal = DoubleVector.fromArray(SPECIES, tableReal, outer);
+            final DoubleVector zImag = DoubleVector.fromArray(SPECIES, tableImag, outer);
+            DoubleVector[] theSum = horner(coeff, zReal, zImag);
+            theSum[0].intoArray(theReal, outer);
+            theSum[1].intoArray(theImag, outer);
+        }
+        return outer;
+    }
+
+    // calculate whole vectors of nums/dens in [from...to-1]
+    public int computeRange(double[] nums, double[] dens, double[] tableReal, double[] tableImag,
+        int from, int to, double[] theReal, double[] theImag)
+    {
+        int outer;
+        for (outer = from; outer + 2*lanes <= to; outer += 2*lanes)
+        {
+            final DoubleVector zReal0 = DoubleVector.fromArray(SPECIES, tableReal, outer);
+            final DoubleVector zImag0 = DoubleVector.fromArray(SPECIES, tableImag, outer);
+            final DoubleVector zReal1 = DoubleVector.fromArray(SPECIES, tableReal, outer + lanes);
+            final DoubleVector zImag1 = DoubleVector.fromArray(SPECIES, tableImag, outer + lanes);
+
+            // numerator and denominator of both vectors together
+            DoubleVector numReal0 = DoubleVector.zero(SPECIES);
+            DoubleVector numImag0 = numReal0;
+            DoubleVector numReal1 = numReal0;
+            DoubleVector numImag1 = numReal0;
+            int inner;
+            for (inner = nums.length - 1; inner >= 0; inner--)
+            {
+                final DoubleVector theCoeff = DoubleVector.broadcast(SPECIES, nums[inner]);
+                final DoubleVector x_new0 = numReal0.mul(zReal0).sub(numImag0.mul(zImag0)).add(theCoeff);
+                final DoubleVector x_new1 = numReal1.mul(zReal1).sub(numImag1.mul(zImag1)).add(theCoeff);
+                numImag0 = numReal0.mul(zImag0).add(numImag0.mul(zReal0));
+                numImag1 = numReal1.mul(zImag1).add(numImag1.mul(zReal1));
+                numReal0 = x_new0;
+                numReal1 = x_new1;
+            }
+            DoubleVector denReal0 = DoubleVector.zero(SPECIES);
+            DoubleVector denImag0 = denReal0;
+            DoubleVector denReal1 = denReal0;
+            DoubleVector denImag1 = denReal0;
+            for (inner = dens.length - 1; inner >= 0; inner--)
+            {
+                final DoubleVector theCoeff = DoubleVector.broadcast(SPECIES, dens[inner]);
+                final DoubleVector x_new0 = denReal0.mul(zReal0).sub(denImag0.mul(zImag0)).add(theCoeff);
+                final DoubleVector x_new1 = denReal1.mul(zReal1).sub(denImag1.mul(zImag1)).add(theCoeff);
+                denImag0 = denReal0.mul(zImag0).add(denImag0.mul(zReal0));
+                denImag1 = denReal1.mul(zImag1).add(denImag1.mul(zReal1));
+                denReal0 = x_new0;
+                denReal1 = x_new1;
+            }
+            divide(numReal0, numImag0, denReal0, denImag0, theReal, theImag, outer);
+            divide(numReal1, numImag1, denReal1, denImag1, theReal, theImag, outer + lanes);
+        }
+        for (; outer + lanes <= to; outer += lanes)
+        {
+            final DoubleVector zReal = DoubleVector.fromArray(SPECIES, tableReal, outer);
+            final DoubleVector zImag = DoubleVector.fromArray(SPECIES, tableImag, outer);
+            DoubleVector[] theNum = horner(nums, zReal, zImag);
+            DoubleVector[] theDen = horner(dens, zReal, zImag);
+            divide(theNum[0], theNum[1], theDen[0], theDen[1], theReal, theImag, outer);
+        }
+        return outer;
+    }
+
+    // one vector of a polynomial by Horner's rule, as {real, imag}
+    private static DoubleVector[] horner(double[] coeff, DoubleVector zReal, DoubleVector zImag)
+    {
+        DoubleVector sumReal = DoubleVector.zero(SPECIES);
+        DoubleVector sumImag = sumReal;
+        int inner;
+        for (inner = coeff.length - 1; inner >= 0; inner--)
+        {
+            final DoubleVector x_new = sumReal.mul(zReal).sub(sumImag.mul(zImag))
+                .add(DoubleVector.broadcast(SPECIES, coeff[inner]));
+            sumImag = sumReal.mul(zImag).add(sumImag.mul(zReal));
+            sumReal = x_new;
+        }
+        return new DoubleVector[] {sumReal, sumImag};
+    }
+
+    // divide numerator by denominator lane by lane, as in ResponseKernel,
+    // storing one vector of results from offset
+    private static void divide(DoubleVector numReal, DoubleVector numImag,
+        DoubleVector denReal, DoubleVector denImag, double[] theReal, double[] theImag, int offset)
+    {
+        final DoubleVector den = denReal.mul(denReal).add(denImag.mul(denImag));
+        numReal.mul(denReal).add(numImag.mul(denImag)).div(den).intoArray(theReal, offset);
+        denReal.mul(numImag).sub(denImag.mul(numReal)).div(den).intoArray(theImag, offset);
+    }
+}